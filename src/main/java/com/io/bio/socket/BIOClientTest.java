@@ -4,36 +4,98 @@ import java.io.*;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author heshuai
  * @title: NIOClientTest
- * @description: NIO 客户端简单模拟
+ * @description: NIO 客户端简单模拟。控制台输入的每一行立即发送，以end开头的行结束一个请求并等待响应；
+ *              多个请求复用同一个连接，服务端已经关闭连接（达到每个连接的请求数上限或者空闲超时）时重新建连并重发当前请求
  * @date 2021年07月18日 21:51
  */
 public class BIOClientTest {
 
     public static void main(String[] args) throws IOException {
-        try (Socket socket = new Socket();){
-            // 连接
-            socket.connect(new InetSocketAddress(InetAddress.getLocalHost(), 8090));
-            OutputStream out = socket.getOutputStream();
-            InputStream in = socket.getInputStream();
-            // 从控制台输入内容作为参数
-            BufferedReader dataByKey = new BufferedReader(new InputStreamReader(System.in));
-            while (true) {
-                String requestData = dataByKey.readLine();
-                // 加上每一行结束符 \n
-                out.write(requestData.concat("\n").getBytes());
-                if (requestData.length() >= 3 && requestData.substring(0,3).equals("end")){
-                    break;
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLocalHost(), 8090);
+        // 从控制台输入内容作为参数，输入结束（Ctrl+D）时退出
+        BufferedReader dataByKey = new BufferedReader(new InputStreamReader(System.in));
+        // 当前请求已经输入的行，重新建连时需要重发
+        List<String> requestLines = new ArrayList<>();
+        Connection connection = null;
+        try {
+            String requestData;
+            while ((requestData = dataByKey.readLine()) != null) {
+                requestLines.add(requestData);
+                if (connection == null) {
+                    connection = new Connection(address);
+                }
+                try {
+                    connection.write(requestData);
+                } catch (IOException e) {
+                    // 服务端已经关闭连接，等请求输入完成后重新建连
+                }
+                if (requestData.length() < 3 || !requestData.substring(0, 3).equals("end")) {
+                    continue;
                 }
+                String responseData = connection.readResponse();
+                if (responseData == null) {
+                    // 连接在上一个请求之后已经被服务端关闭，在新连接上重发一次
+                    connection.close();
+                    connection = new Connection(address);
+                    for (String line : requestLines) {
+                        connection.write(line);
+                    }
+                    responseData = connection.readResponse();
+                }
+                System.out.println("服务端响应: ");
+                System.out.println(responseData);
+                requestLines.clear();
+            }
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 一个可以连续发送多个请求的连接，响应按行读取
+     */
+    private static final class Connection {
+
+        private final Socket socket = new Socket();
+
+        private final OutputStream out;
+
+        private final BufferedReader reader;
+
+        private Connection(InetSocketAddress address) throws IOException {
+            // 连接
+            socket.connect(address);
+            out = socket.getOutputStream();
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        private void write(String requestData) throws IOException {
+            // 加上每一行结束符 \n
+            out.write(requestData.concat("\n").getBytes());
+            out.flush();
+        }
+
+        /**
+         * @return 服务端的响应，连接已经被关闭时返回null
+         */
+        private String readResponse() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                return null;
             }
-            BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-            System.out.println("服务端响应: ");
-            String responseData = reader.readLine();
-            System.out.println(responseData);
+        }
+
+        private void close() throws IOException {
+            socket.close();
         }
     }
 
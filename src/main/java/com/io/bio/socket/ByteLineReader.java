@@ -0,0 +1,122 @@
+package com.io.bio.socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author heshuai
+ * @title: ByteLineReader
+ * @description: 按字节读取以\n（或\r\n）分隔的行，每个连接一个，直接在自己的字节数组中查找分隔符。
+ *              readLine返回的是同一个ByteBuffer视图，position到limit是行的内容（不含分隔符），只在下一次readLine之前有效；
+ *              不解码为String，读取每一行都不产生垃圾对象，只有行长度超过当前数组时才扩容。
+ *              一次读入的多行数据保留在数组中，供后续readLine使用
+ * @date 2026年10月19日 19:30
+ */
+public class ByteLineReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    public static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1024;
+
+    private final InputStream in;
+    private final int maxLineLength;
+    private byte[] buffer;
+    // 包装buffer的视图，作为返回的行复用
+    private ByteBuffer line;
+    // 还没有返回的数据在buffer中的起止位置
+    private int start;
+    private int end;
+    // 未完成的行中已经扫描过的字节数，下次从这里继续查找分隔符，避免重复扫描
+    private int scannedLength;
+
+    public ByteLineReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public ByteLineReader(InputStream in, int bufferSize, int maxLineLength) {
+        if (bufferSize <= 0 || maxLineLength <= 0) {
+            throw new IllegalArgumentException("bufferSize 和 maxLineLength 必须大于0");
+        }
+        this.in = in;
+        this.maxLineLength = maxLineLength;
+        this.buffer = new byte[bufferSize];
+        this.line = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * 读取下一行，没有完整的行时阻塞读取输入流
+     * @return 行内容的视图，下一次调用之前有效；输入流结束并且没有剩余数据时返回null，最后一行可以没有分隔符
+     * @throws IOException 读取失败，或者行长度超过maxLineLength
+     */
+    public ByteBuffer readLine() throws IOException {
+        while (true) {
+            for (int i = start + scannedLength; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    int length = i - start;
+                    if (length > 0 && buffer[i - 1] == '\r') {
+                        length--;
+                    }
+                    return slice(length, i + 1);
+                }
+            }
+            scannedLength = end - start;
+            if (scannedLength > maxLineLength) {
+                throw new IOException("行长度超过最大值 " + maxLineLength);
+            }
+            if (end == buffer.length) {
+                makeRoom();
+            }
+            int count = in.read(buffer, end, buffer.length - end);
+            if (count == -1) {
+                return start == end ? null : slice(end - start, end);
+            }
+            end += count;
+        }
+    }
+
+    /**
+     * 把从start开始、长度为length的行设置到视图中，下一行从next开始
+     */
+    private ByteBuffer slice(int length, int next) throws IOException {
+        if (length > maxLineLength) {
+            throw new IOException("行长度超过最大值 " + maxLineLength);
+        }
+        line.limit(start + length);
+        line.position(start);
+        start = next;
+        scannedLength = 0;
+        return line;
+    }
+
+    /**
+     * 数组已满时先把未返回的数据移到开头，整个数组都是同一行时再扩容，最多扩容到能放下最长的行和\r\n
+     */
+    private void makeRoom() {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+            return;
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxLineLength + 2));
+        line = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * 行是否以prefix开头，直接比较字节，不解码
+     */
+    public static boolean startsWith(ByteBuffer line, byte[] prefix) {
+        if (line.remaining() < prefix.length) {
+            return false;
+        }
+        int position = line.position();
+        for (int i = 0; i < prefix.length; i++) {
+            if (line.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
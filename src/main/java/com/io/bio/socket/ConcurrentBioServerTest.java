@@ -1,29 +1,155 @@
 package com.io.bio.socket;
 
+import com.io.log.AsyncLogger;
+
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.*;
 import java.util.concurrent.*;
 
 /**
  * @author heshuai
  * @title: CurrentBioTest
- * @description: 利用线程池实现并发BIO模型
+ * @description: 利用线程池实现并发BIO模型。
+ *              开启virtualThreads时每个连接一个虚拟线程（JDK21及以上），阻塞读写只挂起虚拟线程，不占用平台线程，
+ *              并发连接数不再受线程池大小限制；当前JDK不支持虚拟线程时退回线程池。
+ *              main通过系统属性io.bio.virtualThreads=true开启。
+ *              每个连接处理多个请求（见SimpleSocketRunnable），连接在存活期间一直占用一个线程，
+ *              使用线程池时同时服务的连接数不超过线程数，其余连接排队，需要大量长连接时应开启virtualThreads。
+ *              main通过系统属性io.bio.maxRequests、io.bio.idleTimeoutMillis、io.bio.readTimeoutMillis配置keep-alive
  * @date 2021年07月18日 21:07
  */
 public class ConcurrentBioServerTest {
 
-    private static ExecutorService executorService = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors()*2, Runtime.getRuntime().availableProcessors()*5,
-            3, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(ConcurrentBioServerTest.class);
+
+    private final ExecutorService executorService;
+
+    // 是否实际使用了虚拟线程
+    private final boolean virtualThreads;
+
+    private final InetSocketAddress address;
+
+    // 每个连接最多处理的请求数和超时时间，传给每个连接的SimpleSocketRunnable
+    private final int maxRequestsPerConnection;
+
+    private final int idleTimeoutMillis;
+
+    private final int readTimeoutMillis;
+
+    private ServerSocket server;
+
+    public ConcurrentBioServerTest(InetSocketAddress address) {
+        this(address, false);
+    }
+
+    public ConcurrentBioServerTest(InetSocketAddress address, boolean virtualThreads) {
+        this(address, virtualThreads, SimpleSocketRunnable.DEFAULT_MAX_REQUESTS, SimpleSocketRunnable.DEFAULT_IDLE_TIMEOUT_MILLIS,
+                SimpleSocketRunnable.DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param virtualThreads 是否每个连接一个虚拟线程，当前JDK不支持时退回线程池
+     * @param maxRequestsPerConnection 每个连接最多处理的请求数，0表示不限制，1表示每个请求之后关闭连接
+     * @param idleTimeoutMillis 两个请求之间连接空闲的超时时间，0表示不限时间
+     * @param readTimeoutMillis 请求读到一部分之后等待剩余数据的超时时间，0表示不限时间
+     */
+    public ConcurrentBioServerTest(InetSocketAddress address, boolean virtualThreads, int maxRequestsPerConnection,
+                                   int idleTimeoutMillis, int readTimeoutMillis) {
+        if (maxRequestsPerConnection < 0 || idleTimeoutMillis < 0 || readTimeoutMillis < 0) {
+            throw new IllegalArgumentException("maxRequestsPerConnection、idleTimeoutMillis 和 readTimeoutMillis 不可以小于0");
+        }
+        this.address = address;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        ExecutorService virtualThreadExecutor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.executorService = virtualThreadExecutor != null ? virtualThreadExecutor : new ThreadPoolExecutor(
+                Runtime.getRuntime().availableProcessors()*2, Runtime.getRuntime().availableProcessors()*5,
+                3, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
 
     public static void main(String[] args) throws IOException {
-        try (ServerSocket server = new ServerSocket()) {
-            // 监听端口
-            server.bind(new InetSocketAddress(InetAddress.getLocalHost(), 8090));
+        ConcurrentBioServerTest bioServer = new ConcurrentBioServerTest(new InetSocketAddress(InetAddress.getLocalHost(), 8090),
+                Boolean.getBoolean("io.bio.virtualThreads"),
+                Integer.getInteger("io.bio.maxRequests", SimpleSocketRunnable.DEFAULT_MAX_REQUESTS),
+                Integer.getInteger("io.bio.idleTimeoutMillis", SimpleSocketRunnable.DEFAULT_IDLE_TIMEOUT_MILLIS),
+                Integer.getInteger("io.bio.readTimeoutMillis", SimpleSocketRunnable.DEFAULT_READ_TIMEOUT_MILLIS));
+        bioServer.bind();
+        bioServer.acceptLoop();
+    }
+
+    /**
+     * 在后台线程中接受连接后立即返回，供在同一进程中启动、停止服务的场景使用（如基准测试）
+     */
+    public void start() throws IOException {
+        bind();
+        Thread acceptor = new Thread(this::acceptLoop, "bio-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void bind() throws IOException {
+        server = new ServerSocket();
+        // 监听端口
+        server.bind(address);
+    }
+
+    private void acceptLoop() {
+        try {
             while (true) {
                 Socket socket = server.accept();
-                executorService.submit(new SimpleSocketRunnable(socket));
+                executorService.submit(new SimpleSocketRunnable(socket, maxRequestsPerConnection, idleTimeoutMillis, readTimeoutMillis));
+            }
+        } catch (IOException e) {
+            // close之后accept抛出SocketException，正常退出
+            if (!server.isClosed()) {
+                e.printStackTrace();
             }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 源码级别是JDK8，通过反射调用Executors.newVirtualThreadPerTaskExecutor
+     * @return 当前JDK没有虚拟线程（JDK21之前，或者JDK19、20没有开启预览特性）时返回null
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            LOGGER.warn("当前JDK不支持虚拟线程，使用线程池处理连接");
+            return null;
+        } catch (InvocationTargetException e) {
+            // JDK19、20没有开启--enable-preview时抛出UnsupportedOperationException
+            LOGGER.warn("当前JDK不支持虚拟线程，使用线程池处理连接，原因：{}", e.getCause());
+            return null;
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 实际监听的端口，端口配置为0时由系统分配
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * 停止接受新连接，正在处理的连接处理完后线程池退出
+     */
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        executorService.shutdown();
     }
 
 }
@@ -1,46 +1,77 @@
 package com.io.bio.socket;
 
+import com.io.log.AsyncLogger;
+import com.io.log.LogLevel;
+
 import java.io.*;
 import java.net.Socket;
-import java.nio.charset.Charset;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author heshuai
  * @title: SimpleSocketRunable
- * @description: bio简单处理模型
+ * @description: bio简单处理模型。一个连接上依次处理多个请求（keep-alive），每个请求以end开头的行结束，响应welcome；
+ *              处理了maxRequests个请求、客户端关闭连接或者超时之后关闭连接，客户端不必为每个请求重新建连。
+ *              等待下一个请求的第一行时使用空闲超时，请求读到一半时使用读超时，超时为0表示不限时间
  * @date 2021年07月18日 21:05
  */
 public class SimpleSocketRunnable implements Runnable{
 
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SimpleSocketRunnable.class);
+
+    public static final int DEFAULT_MAX_REQUESTS = 1000;
+
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 60 * 1000;
+
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30 * 1000;
+
+    private static final byte[] END = "end".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] WELCOME = "welcome\n".getBytes(StandardCharsets.US_ASCII);
+
     private final Socket socket;
+    // 每个连接最多处理的请求数，0表示不限制，1和之前一样每个请求之后关闭连接
+    private final int maxRequests;
+    // 两个请求之间连接空闲的超时时间
+    private final int idleTimeoutMillis;
+    // 请求读到一部分之后等待剩余数据的超时时间
+    private final int readTimeoutMillis;
 
     public SimpleSocketRunnable(Socket socket) {
+        this(socket, DEFAULT_MAX_REQUESTS, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    public SimpleSocketRunnable(Socket socket, int maxRequests, int idleTimeoutMillis, int readTimeoutMillis) {
+        if (maxRequests < 0 || idleTimeoutMillis < 0 || readTimeoutMillis < 0) {
+            throw new IllegalArgumentException("maxRequests、idleTimeoutMillis 和 readTimeoutMillis 不可以小于0");
+        }
         this.socket = socket;
+        this.maxRequests = maxRequests;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
     }
 
     @Override
     public void run() {
         try {
-            System.out.println("开始处理...");
+            LOGGER.debug("开始处理...");
             // 输入流-客户端的数据   InputStream是所有输入流的父类
             InputStream inputStream = this.socket.getInputStream();
             // 输出流-处理后传给的数据   OutputStream是所有输出流的父类
             OutputStream outputStream = this.socket.getOutputStream();
-            // InputStreamReader 将字节流按照指定格式转换为字符流
-            // 最佳实现方式 new BufferedReader(new InputStreamReader());
-            BufferedReader bis = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("utf-8")));
-            String requestData = "";
-            System.out.println("请求数据是：");
-            // 读取一行，以\n \r为结束符，若未读取到\n、\r或者EOF（end of file），则会一直等待读取
-            while ((requestData = bis.readLine()) != null) {
-                System.out.println(requestData);
-                // 遇到end结束读取
-                if (requestData.length() >= 3 && requestData.substring(0,3).equals("end")){
-                    break;
-                }
+            // 直接按字节查找分隔符，不经过InputStreamReader解码，也不为每一行创建String；
+            // 客户端连续发送的多个请求留在reader的缓存中，供后面的请求使用
+            ByteLineReader reader = new ByteLineReader(inputStream);
+            int requests = 0;
+            while ((maxRequests == 0 || requests < maxRequests) && readRequest(reader)) {
+                outputStream.write(WELCOME);
+                outputStream.flush();
+                requests++;
             }
-            outputStream.write("welcome\n".getBytes());
-            outputStream.flush();
+        } catch (SocketTimeoutException e) {
+            LOGGER.info("读超时，关闭连接 {}", socket.getRemoteSocketAddress());
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -53,4 +84,35 @@ public class SimpleSocketRunnable implements Runnable{
             }
         }
     }
+
+    /**
+     * 读取一个请求，直到以end开头的行
+     * @return 是否需要响应；在两个请求之间客户端关闭连接或者空闲超时返回false，请求读到一半时连接关闭和之前一样仍然响应
+     */
+    private boolean readRequest(ByteLineReader reader) throws IOException {
+        socket.setSoTimeout(idleTimeoutMillis);
+        ByteBuffer requestData;
+        try {
+            requestData = reader.readLine();
+        } catch (SocketTimeoutException e) {
+            LOGGER.info("空闲超时，关闭连接 {}", socket.getRemoteSocketAddress());
+            return false;
+        }
+        if (requestData == null) {
+            return false;
+        }
+        socket.setSoTimeout(readTimeoutMillis);
+        // 读取一行，以\n或\r\n为结束符，若未读取到\n或者EOF（end of file），则会一直等待读取
+        do {
+            if (LOGGER.isEnabled(LogLevel.DEBUG)) {
+                // 行视图在下一次readLine时就会被覆盖，而日志是异步输出的，只输出行的字节数，不拷贝内容
+                LOGGER.debug("请求数据 {} 字节", requestData.remaining());
+            }
+            // 遇到end结束读取
+            if (ByteLineReader.startsWith(requestData, END)) {
+                return true;
+            }
+        } while ((requestData = reader.readLine()) != null);
+        return true;
+    }
 }
@@ -0,0 +1,105 @@
+package com.io.log;
+
+/**
+ * @author heshuai
+ * @title: AsyncLogger
+ * @description: 异步日志，调用线程只把模板和参数的引用放入预分配的环形缓冲区，由后台线程格式化并写入System.out。
+ *              模板中的{}按顺序被参数替换；参数在写出之前不能被修改，ByteBuffer参数按UTF-8解码其剩余的字节。
+ *              缓冲区已满时丢弃日志而不是阻塞调用线程，丢弃的条数会由后台线程报告。
+ *              级别和缓冲区大小通过系统属性io.log.level（默认INFO）和io.log.bufferSize（默认8192）配置
+ * @date 2026年10月19日 09:30
+ */
+public final class AsyncLogger {
+
+    private static final LogRingBuffer RING_BUFFER = new LogRingBuffer(
+            Integer.getInteger("io.log.bufferSize", 8192), System.out);
+
+    private static volatile LogLevel level = LogLevel.valueOf(System.getProperty("io.log.level", LogLevel.INFO.name()));
+
+    private final String name;
+
+    private AsyncLogger(String name) {
+        this.name = name;
+    }
+
+    public static AsyncLogger getLogger(Class<?> clazz) {
+        return new AsyncLogger(clazz.getSimpleName());
+    }
+
+    public static void setLevel(LogLevel level) {
+        AsyncLogger.level = level;
+    }
+
+    /**
+     * 因为缓冲区已满而丢弃的日志总数
+     */
+    public static long getDroppedCount() {
+        return RING_BUFFER.getDropped();
+    }
+
+    public boolean isEnabled(LogLevel logLevel) {
+        return logLevel.compareTo(level) >= 0;
+    }
+
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message, null, null, null, null);
+    }
+
+    public void debug(String template, Object arg) {
+        log(LogLevel.DEBUG, template, arg, null, null, null);
+    }
+
+    public void debug(String template, Object arg0, Object arg1) {
+        log(LogLevel.DEBUG, template, arg0, arg1, null, null);
+    }
+
+    public void info(String message) {
+        log(LogLevel.INFO, message, null, null, null, null);
+    }
+
+    public void info(String template, Object arg) {
+        log(LogLevel.INFO, template, arg, null, null, null);
+    }
+
+    public void info(String template, Object arg0, Object arg1) {
+        log(LogLevel.INFO, template, arg0, arg1, null, null);
+    }
+
+    public void info(String template, Object arg0, Object arg1, Object arg2) {
+        log(LogLevel.INFO, template, arg0, arg1, arg2, null);
+    }
+
+    public void warn(String message) {
+        log(LogLevel.WARN, message, null, null, null, null);
+    }
+
+    public void warn(String template, Object arg) {
+        log(LogLevel.WARN, template, arg, null, null, null);
+    }
+
+    public void warn(String template, Object arg0, Object arg1) {
+        log(LogLevel.WARN, template, arg0, arg1, null, null);
+    }
+
+    public void warn(String template, Object arg0, Object arg1, Object arg2) {
+        log(LogLevel.WARN, template, arg0, arg1, arg2, null);
+    }
+
+    public void error(String message) {
+        log(LogLevel.ERROR, message, null, null, null, null);
+    }
+
+    public void error(String message, Throwable throwable) {
+        log(LogLevel.ERROR, message, null, null, null, throwable);
+    }
+
+    public void error(String template, Object arg, Throwable throwable) {
+        log(LogLevel.ERROR, template, arg, null, null, throwable);
+    }
+
+    private void log(LogLevel logLevel, String template, Object arg0, Object arg1, Object arg2, Throwable throwable) {
+        if (isEnabled(logLevel)) {
+            RING_BUFFER.publish(logLevel, name, template, arg0, arg1, arg2, throwable);
+        }
+    }
+}
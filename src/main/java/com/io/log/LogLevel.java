@@ -0,0 +1,11 @@
+package com.io.log;
+
+/**
+ * @author heshuai
+ * @title: LogLevel
+ * @description: 日志级别，低于当前级别的日志在调用方直接丢弃，不进入环形缓冲区
+ * @date 2026年10月19日 09:10
+ */
+public enum LogLevel {
+    DEBUG, INFO, WARN, ERROR
+}
@@ -0,0 +1,220 @@
+package com.io.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author heshuai
+ * @title: LogRingBuffer
+ * @description: 预分配的多生产者、单消费者环形缓冲区，所有AsyncLogger共用一个。
+ *              生产者通过CAS申请槽位，只把级别、时间、模板和参数的引用写入槽位，不加锁、不格式化；
+ *              缓冲区已满时直接丢弃并计数。后台刷新线程按序号读取已发布的槽位，格式化后批量写入输出流
+ * @date 2026年10月19日 09:20
+ */
+final class LogRingBuffer implements Runnable {
+
+    // 刷新线程没有日志可写时的休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // 一次批量写出的最多条数
+    private static final int MAX_BATCH = 256;
+
+    private final Entry[] entries;
+    private final int mask;
+    // 下一个要申请的序号
+    private final AtomicLong tail = new AtomicLong();
+    // 下一个要消费的序号，只由刷新线程写入
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    // 上一次报告丢弃时的丢弃总数，只由刷新线程访问
+    private long reportedDropped;
+    private final PrintStream out;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final StringBuilder batch = new StringBuilder(16 * 1024);
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    LogRingBuffer(int capacity, PrintStream out) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity 必须是2的幂");
+        }
+        this.entries = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry(i - capacity);
+        }
+        this.mask = capacity - 1;
+        this.out = out;
+        this.flusher = new Thread(this, "async-logger");
+        flusher.setDaemon(true);
+        flusher.start();
+        // 进程退出前写出缓冲区中剩余的日志
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "async-logger-shutdown"));
+    }
+
+    /**
+     * 发布一条日志，可以在任意线程调用
+     * @return 缓冲区已满被丢弃时返回false
+     */
+    boolean publish(LogLevel level, String loggerName, String template, Object arg0, Object arg1, Object arg2, Throwable throwable) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= entries.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        Entry entry = entries[(int) (sequence & mask)];
+        entry.level = level;
+        entry.timeMillis = System.currentTimeMillis();
+        entry.threadName = Thread.currentThread().getName();
+        entry.loggerName = loggerName;
+        entry.template = template;
+        entry.arg0 = arg0;
+        entry.arg1 = arg1;
+        entry.arg2 = arg2;
+        entry.throwable = throwable;
+        // 最后写入序号，刷新线程看到序号后才会读取上面的字段
+        entry.sequence = sequence;
+        return true;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void shutdown() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * 写出所有已发布的日志
+     * @return 写出的条数
+     */
+    private synchronized int drain() {
+        int count = 0;
+        long sequence = head;
+        while (true) {
+            Entry entry = entries[(int) (sequence & mask)];
+            // 槽位已经被申请但还没有写完时，序号还是上一轮的值
+            if (entry.sequence != sequence) {
+                break;
+            }
+            format(entry);
+            entry.clear();
+            sequence++;
+            head = sequence;
+            count++;
+            if (count % MAX_BATCH == 0) {
+                write();
+            }
+        }
+        long droppedCount = dropped.sum();
+        if (droppedCount != reportedDropped) {
+            batch.append(dateFormat.format(new Date())).append(" WARN  [async-logger] 缓冲区已满，丢弃了 ")
+                    .append(droppedCount - reportedDropped).append(" 条日志\n");
+            reportedDropped = droppedCount;
+        }
+        write();
+        return count;
+    }
+
+    private void write() {
+        if (batch.length() > 0) {
+            // 只有刷新线程写输出流，不会和业务线程竞争锁
+            out.print(batch);
+            out.flush();
+            batch.setLength(0);
+        }
+    }
+
+    private void format(Entry entry) {
+        batch.append(dateFormat.format(new Date(entry.timeMillis))).append(' ');
+        String level = entry.level.name();
+        batch.append(level);
+        for (int i = level.length(); i < 5; i++) {
+            batch.append(' ');
+        }
+        batch.append(" [").append(entry.threadName).append("] ").append(entry.loggerName).append(" - ");
+        // 按顺序用参数替换模板中的{}
+        Object[] args = {entry.arg0, entry.arg1, entry.arg2};
+        String template = entry.template;
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < args.length && (placeholder = template.indexOf("{}", start)) != -1) {
+            batch.append(template, start, placeholder);
+            appendArg(args[argIndex++]);
+            start = placeholder + 2;
+        }
+        batch.append(template, start, template.length()).append('\n');
+        if (entry.throwable != null) {
+            StringWriter stackTrace = new StringWriter();
+            entry.throwable.printStackTrace(new PrintWriter(stackTrace));
+            batch.append(stackTrace);
+        }
+    }
+
+    private void appendArg(Object arg) {
+        if (arg instanceof ByteBuffer) {
+            // 请求帧等字节数据按UTF-8解码，不改变原buffer的位置
+            batch.append(StandardCharsets.UTF_8.decode(((ByteBuffer) arg).duplicate()));
+        } else {
+            batch.append(arg);
+        }
+    }
+
+    /**
+     * 环形缓冲区中的一个槽位，创建后一直复用
+     */
+    private static final class Entry {
+        private volatile long sequence;
+        private LogLevel level;
+        private long timeMillis;
+        private String threadName;
+        private String loggerName;
+        private String template;
+        private Object arg0;
+        private Object arg1;
+        private Object arg2;
+        private Throwable throwable;
+
+        Entry(long sequence) {
+            this.sequence = sequence;
+        }
+
+        /**
+         * 释放参数的引用，避免缓冲区让它们无法被回收
+         */
+        void clear() {
+            template = null;
+            arg0 = null;
+            arg1 = null;
+            arg2 = null;
+            throwable = null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.io.nio.socket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author heshuai
+ * @title: AdaptiveConcurrencyLimiter
+ * @description: 基于AIMD（加性增、乘性减）的自适应并发限制器，由业务处理的实际延迟驱动：
+ *              延迟超过阈值或者请求被丢弃时把并发上限乘以backoffRatio，
+ *              延迟正常并且并发接近上限时把上限加一；超过上限的请求直接在入口处拒绝，而不是无限排队
+ * @date 2026年10月18日 21:00
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+    // 延迟超过这个值认为已经过载，单位纳秒
+    private final long latencyThresholdNanos;
+    // 过载时并发上限的缩小比例
+    private final double backoffRatio;
+    // 当前的并发上限
+    private final AtomicInteger limit;
+    // 当前正在处理的请求数
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 被拒绝的请求数
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("必须满足 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio 必须在0和1之间");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    /**
+     * 申请一个并发名额，成功后必须调用release归还
+     * @return false表示已经达到并发上限，请求应当被立即拒绝
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一个并发名额并根据这次请求的结果调整上限
+     * @param latencyNanos 这次请求的处理耗时
+     * @param dropped 请求是否失败或者被下游拒绝
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+        } else if (current * 2 >= limit.get()) {
+            // 只有并发接近上限时才加大，空闲时上限不会无限增长
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    /**
+     * 记录在入口处被拒绝的请求数
+     */
+    public void addRejected(int count) {
+        rejected.add(count);
+    }
+
+    /**
+     * 归还一个没有实际执行的请求的名额，不调整上限
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter{limit=" + getLimit() + ", inFlight=" + getInFlight() + ", rejected=" + getRejected() + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package com.io.nio.socket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: CommandLineOptions
+ * @description: 压测和基准测试工具共用的命令行参数，每个参数为key=value形式，没有给出的参数使用默认值
+ * @date 2026年10月19日 21:40
+ */
+final class CommandLineOptions {
+
+    private final Map<String, String> options = new HashMap<>();
+
+    private CommandLineOptions() {
+    }
+
+    static CommandLineOptions parse(String[] args) {
+        CommandLineOptions parsed = new CommandLineOptions();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数格式为key=value: " + arg);
+            }
+            parsed.options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        return parsed;
+    }
+
+    String get(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * 以秒为单位的参数，返回纳秒
+     */
+    long getSecondsAsNanos(String key, long defaultSeconds) {
+        return TimeUnit.SECONDS.toNanos(getLong(key, defaultSeconds));
+    }
+
+    /**
+     * 逗号分隔的整数列表，例如connections=1,16,64
+     */
+    int[] getInts(String key, String defaultValue) {
+        return Arrays.stream(get(key, defaultValue).split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+}
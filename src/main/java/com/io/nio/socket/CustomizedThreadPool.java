@@ -1,6 +1,7 @@
 package com.io.nio.socket;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author heshuai
@@ -10,24 +11,41 @@ import java.util.concurrent.*;
  */
 public class CustomizedThreadPool {
 
-    private final static ExecutorService SOCKED_THREAD_POOL = new  ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),Runtime.getRuntime().availableProcessors()*2,500, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<Runnable>(), Executors.defaultThreadFactory(),new ThreadPoolExecutor.AbortPolicy());
+    // 业务线程池的队列容量，队列满了之后才会扩容到最大线程数，再满则由AbortPolicy拒绝
+    private final static int READ_WRITE_QUEUE_CAPACITY = 1024;
+
+    // 事件循环、accept循环都是存活到服务关闭的任务，不适合放进有上限的线程池（超过上限时启动就会被拒绝），
+    // 每个任务由这个工厂创建一个独立的线程，数量只取决于配置的事件循环数和Acceptor数
+    private final static AtomicInteger SOCKED_THREAD_NUMBER = new AtomicInteger();
+    private final static ThreadFactory SOCKED_THREAD_FACTORY = r -> new Thread(r, "socked-handler-" + SOCKED_THREAD_NUMBER.incrementAndGet());
 
     private final static ExecutorService READ_WRITE_THREAD_POOL = new  ThreadPoolExecutor(16,32,500, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<Runnable>(), Executors.defaultThreadFactory(),new ThreadPoolExecutor.AbortPolicy());
+            new ArrayBlockingQueue<Runnable>(READ_WRITE_QUEUE_CAPACITY), Executors.defaultThreadFactory(),new ThreadPoolExecutor.AbortPolicy());
+
+    // 所有业务处理共用的自适应并发限制器，初始上限64，处理耗时超过100ms认为过载
+    private final static AdaptiveConcurrencyLimiter LIMITER = new AdaptiveConcurrencyLimiter(64, 4, READ_WRITE_QUEUE_CAPACITY,
+            TimeUnit.MILLISECONDS.toNanos(100), 0.9);
 
+    /**
+     * 为事件循环、accept循环等长期运行的任务启动一个独立线程，任务结束时线程退出
+     */
     public static void sockedHandlerSubmit(Runnable task) {
-        SOCKED_THREAD_POOL.submit(task);
+        SOCKED_THREAD_FACTORY.newThread(task).start();
     }
 
+    /**
+     * 提交业务处理任务，队列已满并且线程数已经达到上限时抛出RejectedExecutionException
+     */
     public static void writeHandlerSubmit(Runnable task) {
         READ_WRITE_THREAD_POOL.submit(task);
     }
 
+    public static AdaptiveConcurrencyLimiter limiter() {
+        return LIMITER;
+    }
+
     public static void shutdown() {
-        // 先关闭端口监听，不在接受请求
-        SOCKED_THREAD_POOL.shutdown();
-        // 处理完剩下所有请求后关闭
+        // 事件循环和accept循环由SelectorManager.close停止，这里只关闭业务线程池，处理完剩下所有请求后关闭
         READ_WRITE_THREAD_POOL.shutdown();
     }
 
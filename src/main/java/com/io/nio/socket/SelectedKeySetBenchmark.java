@@ -0,0 +1,120 @@
+package com.io.nio.socket;
+
+import com.io.nio.socket.selector.SelectedKeySet;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: SelectedKeySetBenchmark
+ * @description: 对比JDK自带的HashSet和数组实现的SelectedKeySet遍历selectedKeys的吞吐量。
+ *              为每个key创建一个写入了数据但从不读取的Pipe，每次selectNow都会返回全部key，只测量select和遍历的开销。
+ *              参数为key=value形式，例如：keys=512 warmup=2 duration=5。
+ *              JDK9及以上需要 --add-opens java.base/sun.nio.ch=ALL-UNNAMED 才能测量数组实现
+ * @date 2026年10月19日 14:30
+ */
+public class SelectedKeySetBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = CommandLineOptions.parse(args);
+        int keys = options.getInt("keys", 512);
+        long warmupNanos = options.getSecondsAsNanos("warmup", 2);
+        long durationNanos = options.getSecondsAsNanos("duration", 5);
+        run("HashSet", false, keys, warmupNanos, durationNanos);
+        run("SelectedKeySet", true, keys, warmupNanos, durationNanos);
+    }
+
+    private static void run(String name, boolean optimized, int keyCount, long warmupNanos, long durationNanos) throws IOException {
+        Selector selector = Selector.open();
+        List<Pipe> pipes = new ArrayList<>();
+        try {
+            SelectedKeySet selectedKeys = optimized ? SelectedKeySet.install(selector) : null;
+            if (optimized && selectedKeys == null) {
+                System.out.println(name + ": 当前JDK不允许替换selectedKeys，跳过");
+                return;
+            }
+            ByteBuffer data = ByteBuffer.allocate(1);
+            for (int i = 0; i < keyCount; i++) {
+                Pipe pipe = Pipe.open();
+                pipes.add(pipe);
+                data.clear();
+                pipe.sink().write(data);
+                pipe.source().configureBlocking(false);
+                pipe.source().register(selector, SelectionKey.OP_READ);
+            }
+            iterate(selector, selectedKeys, System.nanoTime() + warmupNanos);
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            long allocatedBefore = allocatedBytes(threadMXBean);
+            long start = System.nanoTime();
+            long[] result = iterate(selector, selectedKeys, start + durationNanos);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes(threadMXBean) - allocatedBefore;
+            long selects = result[0];
+            long processed = result[1];
+            System.out.println(name + ": keys=" + keyCount + ", select次数=" + selects
+                    + ", 每秒处理key数=" + processed * TimeUnit.SECONDS.toNanos(1) / elapsed
+                    + ", 每个key耗时=" + String.format("%.1f", (double) elapsed / processed) + "ns"
+                    + (allocated >= 0 ? ", 每次select分配=" + allocated / Math.max(1, selects) + "字节" : ""));
+        } finally {
+            selector.close();
+            for (Pipe pipe : pipes) {
+                pipe.sink().close();
+                pipe.source().close();
+            }
+        }
+    }
+
+    /**
+     * 持续selectNow并遍历就绪的key，直到deadline
+     * @return select次数和处理的key数
+     */
+    private static long[] iterate(Selector selector, SelectedKeySet selectedKeys, long deadline) throws IOException {
+        long selects = 0;
+        long processed = 0;
+        // 累加readyOps，避免遍历被JIT消除
+        long checksum = 0;
+        while (System.nanoTime() < deadline) {
+            selector.selectNow();
+            selects++;
+            if (selectedKeys != null) {
+                int size = selectedKeys.size();
+                for (int i = 0; i < size; i++) {
+                    checksum += selectedKeys.get(i).readyOps();
+                }
+                selectedKeys.reset();
+                processed += size;
+            } else {
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    checksum += iterator.next().readyOps();
+                    iterator.remove();
+                    processed++;
+                }
+            }
+        }
+        if (checksum == 0 && processed > 0) {
+            System.out.println("没有就绪的key");
+        }
+        return new long[]{selects, processed};
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long allocatedBytes(ThreadMXBean threadMXBean) {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
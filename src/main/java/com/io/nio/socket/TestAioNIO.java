@@ -0,0 +1,24 @@
+package com.io.nio.socket;
+
+import com.io.nio.socket.aio.AioServer;
+import com.io.nio.socket.aio.AioServerBuilder;
+
+import java.io.IOException;
+
+/**
+ * @author heshuai
+ * @title: TestAioNIO
+ * @description: 以NIO.2（AsynchronousServerSocketChannel）传输方式启动服务，协议和业务处理器与TestNIO相同，
+ *              可以用TestNIOClient port=8094 和TestNIO在同样的负载下对比
+ * @date 2026年10月19日 17:10
+ */
+public class TestAioNIO {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        AioServer server = AioServerBuilder.port(8094).threads(4).build();
+        server.start();
+        // 所有工作都在线程组中进行，主线程只负责保持进程运行
+        Thread.currentThread().join();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.io.nio.socket;
+
+import com.io.nio.socket.codec.http.HttpResponse;
+import com.io.nio.socket.selector.SelectorManager;
+import com.io.nio.socket.selector.SelectorManagerBuilder;
+import com.io.nio.socket.service.ExecutionStrategy;
+import com.io.nio.socket.service.http.HttpHandler;
+import com.io.nio.socket.service.http.HttpRouter;
+import com.io.nio.socket.service.http.StaticFileHandler;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * @author heshuai
+ * @title: TestHttpNIO
+ * @description: 以HTTP/1.1协议启动自定义NIO模型，可以直接用wrk、ab等HTTP压测工具测试
+ * @date 2026年10月18日 22:00
+ */
+public class TestHttpNIO {
+
+    public static void main(String[] args) throws IOException {
+        HttpRouter router = new HttpRouter()
+                .route("/hello", HttpHandler.sync(request -> HttpResponse.ok("Welcome!!!")))
+                .route("/echo", HttpHandler.sync(request -> HttpResponse.ok(request.getBodyAsString())))
+                .route("/files/", new StaticFileHandler("/files/", Paths.get(System.getProperty("user.dir"))));
+        SelectorManager selectorManager = SelectorManagerBuilder.port(8090)
+                .eventLoopAccount(4)
+                .http(router, ExecutionStrategy.inline())
+                .build();
+        selectorManager.startNIO();
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.io.nio.socket;
+
+import com.io.nio.socket.codec.mux.MuxFrame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author heshuai
+ * @title: TestMuxClient
+ * @description: 多路复用协议的客户端，在同一个连接上一次发出多个请求，越早发出的请求服务端处理得越慢，
+ *              响应按完成顺序返回，总耗时接近最慢的一个请求而不是所有请求之和。
+ *              参数：[host] [port] [请求数]，默认 localhost 8092 10
+ * @date 2026年10月19日 11:10
+ */
+public class TestMuxClient {
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8092;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            long start = System.nanoTime();
+            for (int streamId = 1; streamId <= requests; streamId++) {
+                byte[] payload = ("sleep:" + (requests - streamId + 1) * 50).getBytes(StandardCharsets.UTF_8);
+                out.write(new MuxFrame(streamId, MuxFrame.TYPE_REQUEST, ByteBuffer.wrap(payload)).encode().array());
+            }
+            out.flush();
+            for (int i = 0; i < requests; i++) {
+                int length = in.readInt();
+                int streamId = in.readInt();
+                byte type = in.readByte();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                System.out.println("stream " + streamId + (type == MuxFrame.TYPE_ERROR ? " 失败: " : " 响应: ")
+                        + new String(payload, StandardCharsets.UTF_8) + "，耗时 " + (System.nanoTime() - start) / 1000000 + "ms");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.io.nio.socket;
+
+import com.io.nio.socket.selector.SelectorManager;
+import com.io.nio.socket.selector.SelectorManagerBuilder;
+import com.io.nio.socket.service.ExecutionStrategy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: TestMuxNIO
+ * @description: 以多路复用的二进制协议启动自定义NIO模型。请求payload为"sleep:毫秒数"时延迟该时间后返回，
+ *              模拟慢速后端，其余请求原样返回；配合TestMuxClient观察同一连接上的响应按完成顺序返回
+ * @date 2026年10月19日 11:00
+ */
+public class TestMuxNIO {
+
+    private static final String SLEEP_PREFIX = "sleep:";
+
+    public static void main(String[] args) throws IOException {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        SelectorManager selectorManager = SelectorManagerBuilder.port(8092)
+                .eventLoopAccount(4)
+                .mux(payload -> {
+                    String request = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+                    if (!request.startsWith(SLEEP_PREFIX)) {
+                        return CompletableFuture.completedFuture(payload);
+                    }
+                    // 不阻塞EventLoop线程，到期后由定时线程完成future
+                    CompletableFuture<ByteBuffer> response = new CompletableFuture<>();
+                    long delay = Long.parseLong(request.substring(SLEEP_PREFIX.length()).trim());
+                    timer.schedule(() -> response.complete(payload), delay, TimeUnit.MILLISECONDS);
+                    return response;
+                }, ExecutionStrategy.inline())
+                .build();
+        selectorManager.startNIO();
+    }
+
+}
@@ -1,66 +1,538 @@
 package com.io.nio.socket;
 
+import com.io.nio.socket.metrics.Histogram;
+
 import java.io.IOException;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * @author heshuai
  * @title: TestNIOClient
- * @description: TODO
+ * @description: 基于客户端Selector的压测工具，单线程驱动多个连接，用于在本机评估SelectorManager的容量。
+ *              参数为key=value形式，例如：connections=64 mode=open rate=20000 warmup=5 duration=10
+ *              open模式按固定速率发送请求，不等待响应（请求可以在连接上排队）；closed模式每个连接同一时刻只有一个请求，
+ *              收到响应后才发送下一个，设置rate时按该速率限速。
+ *              延迟从请求“计划发送”的时间开始计算，服务端卡顿期间本应发出但被推迟的请求也会计入等待时间，
+ *              即校正了协调遗漏（coordinated omission）；同时输出从实际发送时间计算的未校正延迟作为对比。
+ *              响应按\n切分，和拒绝响应（reject参数，默认Server Busy!!!）相同的响应单独计数，不计入延迟；
+ *              一个连接读写失败只关闭该连接并计为错误，其余连接继续压测。
+ *              closed模式下可以设置requestsPerConnection，每个连接发送这么多请求后重新建立连接（配合每个连接只处理有限个请求的服务端），
+ *              建连时间计入下一个请求的延迟。TransportBenchmark用同一个压测引擎压测所有传输方式
  * @date 2021年07月17日 23:45
  */
 public class TestNIOClient {
 
-    public static void main(String[] args) {
-        byte[] data = "hello".getBytes();
-        SocketChannel channel = null;
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = CommandLineOptions.parse(args);
+        boolean openLoop = "open".equals(options.get("mode", "closed"));
+        TestNIOClient client = new TestNIOClient(
+                new InetSocketAddress(options.get("host", "127.0.0.1"), options.getInt("port", 8090)),
+                options.getInt("connections", 16), openLoop, options.getLong("rate", openLoop ? 10000 : 0),
+                options.getSecondsAsNanos("warmup", 5), options.getSecondsAsNanos("duration", 10),
+                (options.get("message", "hello") + "\n").getBytes(StandardCharsets.UTF_8),
+                options.get("reject", "Server Busy!!!").getBytes(StandardCharsets.UTF_8),
+                options.getInt("requestsPerConnection", 0));
         try {
-            channel = SocketChannel.open();
-            channel.configureBlocking(false);
-            // connect 连接一个socket端口，在nio模式下，如果socket连接立即建立成功，则返回true；如果正在建立，则返回false;
-            // 在bio模式下，会阻塞直到连接建立或者发生异常
-            if (!channel.connect(new InetSocketAddress(InetAddress.getLocalHost(), 8090))) {
-                // 在一个nio中，建立连接后需要使用finishConnect去完成一个连接
-                // 1. 如果连接建立成功，调用该方法返回true
-                // 2. 连接建立失败，则抛出IOException异常
-                // 3. 连接建立未完成，则返回false;
-                // 在bio这一步中会阻塞流程并且直到连接建立完成，而nio会理解返回一个当前连接的状态结果
-                while (!channel.finishConnect()) {
-                    System.out.print(".");
+            client.connect();
+            System.out.println("已建立 " + client.connectionAccount + " 个连接，模式 " + (openLoop ? "open" : "closed")
+                    + (client.rate > 0 ? "，目标速率 " + client.rate + " req/s" : "，不限速") + "，预热 "
+                    + TimeUnit.NANOSECONDS.toSeconds(client.warmupNanos) + "s，测量 "
+                    + TimeUnit.NANOSECONDS.toSeconds(client.durationNanos) + "s");
+            client.run(System.nanoTime());
+            client.report();
+        } finally {
+            client.close();
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final int connectionAccount;
+    private final boolean openLoop;
+    // 所有连接合计的目标速率，每秒请求数，0表示closed模式下不限速
+    private final long rate;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final byte[] request;
+    // 服务端的拒绝响应，不含结尾的\n
+    private final byte[] rejectResponse;
+    // closed模式下每个连接发送多少个请求后重新建立连接，0表示不重新建连
+    private final int requestsPerConnection;
+
+    private Selector selector;
+    private final List<LoadConnection> connections = new ArrayList<>();
+
+    // 校正了协调遗漏的延迟，从计划发送时间开始计算
+    private final Histogram correctedLatency = new Histogram();
+    // 从实际发送时间开始计算的延迟
+    private final Histogram uncorrectedLatency = new Histogram();
+    // 测量阶段内被服务端拒绝的请求数
+    private long rejected;
+    // 读写失败或者被服务端意外关闭的连接数
+    private long errors;
+    private long measureStart;
+    private long measureEnd;
+
+    /**
+     * @param request 一个完整的请求，包括结尾的分隔符
+     * @param rejectResponse 服务端的拒绝响应，不含结尾的\n
+     */
+    TestNIOClient(InetSocketAddress address, int connectionAccount, boolean openLoop, long rate, long warmupNanos,
+                  long durationNanos, byte[] request, byte[] rejectResponse, int requestsPerConnection) {
+        if (connectionAccount <= 0 || (openLoop && rate <= 0)) {
+            throw new IllegalArgumentException("connections 必须大于0，open模式下 rate 必须大于0");
+        }
+        if (requestsPerConnection < 0 || (openLoop && requestsPerConnection > 0)) {
+            throw new IllegalArgumentException("requestsPerConnection 不可以小于0，只能在closed模式下设置");
+        }
+        this.address = address;
+        this.connectionAccount = connectionAccount;
+        this.openLoop = openLoop;
+        this.rate = rate;
+        this.warmupNanos = warmupNanos;
+        this.durationNanos = durationNanos;
+        this.request = request;
+        this.rejectResponse = rejectResponse;
+        this.requestsPerConnection = requestsPerConnection;
+    }
+
+    /**
+     * 以非阻塞方式建立所有连接，全部建立完成之后才开始计时
+     */
+    void connect() throws IOException {
+        selector = Selector.open();
+        int pending = 0;
+        for (int i = 0; i < connectionAccount; i++) {
+            LoadConnection connection = new LoadConnection(request.length, rejectResponse.length);
+            connections.add(connection);
+            if (!open(connection)) {
+                pending++;
+            }
+        }
+        while (pending > 0) {
+            if (selector.select(TimeUnit.SECONDS.toMillis(10)) == 0) {
+                throw new IOException("连接超时，还有 " + pending + " 个连接没有建立");
+            }
+            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                if (key.isConnectable() && ((SocketChannel) key.channel()).finishConnect()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    pending--;
                 }
             }
-            System.out.println("Connected to server...");
-            ByteBuffer writeBuffer = ByteBuffer.wrap(data);
-            ByteBuffer readBuffer = ByteBuffer.allocate(1024);
-            int bytesReceived;
-            while (true) {
-                if (writeBuffer.hasRemaining()) {
-                    channel.write(writeBuffer);
+        }
+    }
+
+    /**
+     * 为连接打开一个新的非阻塞channel并开始建连
+     * @return 连接是否已经建立，否则需要在OP_CONNECT就绪后调用finishConnect
+     */
+    private boolean open(LoadConnection connection) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        connection.channel = channel;
+        connection.sentRequests = 0;
+        connection.lineLength = 0;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        // 在nio模式下，如果连接立即建立成功则返回true，否则需要在OP_CONNECT就绪后调用finishConnect完成连接
+        if (channel.connect(address)) {
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            return true;
+        }
+        connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+        return false;
+    }
+
+    /**
+     * 从start开始发送请求，start之后warmup时间内是预热阶段，之后是测量阶段；
+     * 测量阶段结束后停止发送，最多再等待2秒接收已发出请求的响应。在调用connect的线程之外调用时，结束之后才能读取结果
+     */
+    void run(long start) throws IOException {
+        // 每个连接的计划发送间隔，各连接的起始时间错开，避免同时发送
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * connectionAccount / rate : 0;
+        measureStart = start + warmupNanos;
+        measureEnd = measureStart + durationNanos;
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).nextIntendedTime = start + interval * i / connectionAccount;
+        }
+        loop(interval, measureEnd);
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        loop(interval, -1);
+        while (outstanding() > 0 && System.nanoTime() < drainDeadline) {
+            selector.select(10);
+            processSelectedKeys(System.nanoTime());
+        }
+    }
+
+    /**
+     * 关闭所有连接
+     */
+    void close() throws IOException {
+        for (LoadConnection connection : connections) {
+            close(connection);
+        }
+        if (selector != null) {
+            selector.close();
+        }
+    }
+
+    /**
+     * 发送和接收，直到deadline；deadline为-1时只把已经排队的请求写出
+     */
+    private void loop(long interval, long deadline) throws IOException {
+        long now = System.nanoTime();
+        while (deadline == -1 || now < deadline) {
+            long nextSend = Long.MAX_VALUE;
+            for (LoadConnection connection : connections) {
+                if (connection.failed) {
+                    // 失败的连接不再发送请求，也不参与等待时间的计算，否则不限速时会一直selectNow空转
+                    continue;
                 }
-                if ((channel.read(readBuffer)) == -1) {
-                    break;
+                if (deadline != -1) {
+                    schedule(connection, interval, now);
+                    if (openLoop || connection.intendedTimes.isEmpty()) {
+                        nextSend = Math.min(nextSend, connection.nextIntendedTime);
+                    }
                 }
-                TimeUnit.SECONDS.sleep(1);
-                System.out.print(".");
+                flush(connection);
             }
-            readBuffer.flip();
-            System.out.println("Server said: " + new String(readBuffer.array()));
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                if (channel != null) {
-                    channel.close();
+            if (deadline == -1) {
+                return;
+            }
+            // 有请求到期时只检查一次就绪的key，否则最多等待到下一个请求的计划发送时间
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(Math.min(nextSend, deadline) - now);
+            if (waitMillis > 0) {
+                selector.select(waitMillis);
+            } else {
+                selector.selectNow();
+            }
+            now = System.nanoTime();
+            processSelectedKeys(now);
+        }
+    }
+
+    /**
+     * 把到了计划发送时间的请求放入连接的发送缓存
+     */
+    private void schedule(LoadConnection connection, long interval, long now) {
+        if (openLoop) {
+            while (connection.nextIntendedTime <= now) {
+                connection.enqueue(request, connection.nextIntendedTime, now);
+                connection.nextIntendedTime += interval;
+            }
+        } else if (connection.intendedTimes.isEmpty() && connection.nextIntendedTime <= now) {
+            if (requestsPerConnection > 0 && connection.sentRequests == requestsPerConnection) {
+                // 服务端处理完这么多请求后关闭连接，下一个请求在新连接上发送，建连完成后才写出
+                reconnect(connection);
+            }
+            // 不限速时收到响应后立即发送下一个请求，计划发送时间就是实际发送时间
+            connection.enqueue(request, interval > 0 ? connection.nextIntendedTime : now, now);
+            connection.nextIntendedTime += interval;
+        }
+    }
+
+    private void reconnect(LoadConnection connection) {
+        close(connection);
+        try {
+            open(connection);
+        } catch (IOException e) {
+            fail(connection, e);
+        }
+    }
+
+    private void processSelectedKeys(long now) {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            LoadConnection connection = (LoadConnection) key.attachment();
+            if (key.isValid() && key.isConnectable()) {
+                finishConnect(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(connection);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(connection, now);
+            }
+        }
+    }
+
+    private void finishConnect(LoadConnection connection) {
+        try {
+            if (connection.channel.finishConnect()) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+                // 建连期间放入发送缓存的请求
+                connection.flush();
+            }
+        } catch (IOException e) {
+            fail(connection, e);
+        }
+    }
+
+    private void flush(LoadConnection connection) {
+        try {
+            connection.flush();
+        } catch (IOException e) {
+            fail(connection, e);
+        }
+    }
+
+    private void read(LoadConnection connection, long now) {
+        ByteBuffer buffer = connection.readBuffer;
+        int count;
+        try {
+            while ((count = connection.channel.read(buffer)) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        complete(connection, now);
+                    } else {
+                        connection.appendLine(b);
+                    }
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            fail(connection, e);
+            return;
+        }
+        if (count == -1) {
+            // 处理完requestsPerConnection个请求之后关闭连接是预期的，否则计为错误
+            if (requestsPerConnection == 0 || connection.sentRequests < requestsPerConnection || !connection.intendedTimes.isEmpty()) {
+                errors++;
+                System.out.println("服务端关闭了连接，还有 " + connection.intendedTimes.size() + " 个请求没有响应");
+                connection.failed = true;
+            }
+            close(connection);
+        }
+    }
+
+    /**
+     * 收到一行完整的响应，对应该连接上最早发出的请求
+     */
+    private void complete(LoadConnection connection, long now) {
+        boolean isRejected = connection.isLine(rejectResponse);
+        connection.lineLength = 0;
+        if (connection.intendedTimes.isEmpty()) {
+            // 没有发出请求却收到了响应，说明响应的切分和请求对不上
+            errors++;
+            return;
+        }
+        long intended = connection.intendedTimes.poll();
+        long sent = connection.sentTimes.poll();
+        // 只统计计划发送时间落在测量阶段内的请求
+        if (intended < measureStart || intended >= measureEnd) {
+            return;
+        }
+        if (isRejected) {
+            rejected++;
+        } else {
+            correctedLatency.record(now - intended);
+            uncorrectedLatency.record(now - sent);
+        }
+    }
+
+    /**
+     * 一个连接读写失败只关闭该连接，其余连接继续压测
+     */
+    private void fail(LoadConnection connection, IOException e) {
+        errors++;
+        System.out.println("连接读写失败：" + e + "，还有 " + connection.intendedTimes.size() + " 个请求没有响应");
+        connection.failed = true;
+        close(connection);
+    }
+
+    private static void close(LoadConnection connection) {
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        if (connection.channel == null) {
+            return;
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // 连接已经不可用，忽略
+        }
+    }
+
+    private int outstanding() {
+        int outstanding = 0;
+        for (LoadConnection connection : connections) {
+            if (connection.channel.isOpen()) {
+                outstanding += connection.intendedTimes.size();
+            }
+        }
+        return outstanding;
+    }
+
+    private void report() {
+        long completed = correctedLatency.getCount();
+        double seconds = durationNanos / 1e9;
+        System.out.println("测量阶段完成请求 " + completed + " 个，吞吐 " + String.format("%.1f", completed / seconds)
+                + " req/s，被拒绝 " + rejected + " 个，结束时未响应 " + outstanding() + " 个，连接错误 " + errors + " 次");
+        System.out.println("延迟(us)            p50        p99      p99.9        max");
+        print("校正后", correctedLatency);
+        print("未校正", uncorrectedLatency);
+        if (!openLoop && rate <= 0) {
+            System.out.println("closed模式未设置rate，计划发送时间等于实际发送时间，无法校正协调遗漏");
+        }
+    }
+
+    /**
+     * 测量阶段内成功响应的请求的延迟，已经校正了协调遗漏；closed模式不限速时和未校正的延迟相同
+     */
+    Histogram getLatency() {
+        return correctedLatency;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    private static void print(String name, Histogram histogram) {
+        System.out.println(String.format("%-12s %10d %10d %10d %10d", name,
+                TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99.9)),
+                TimeUnit.NANOSECONDS.toMicros(histogram.getMax())));
+    }
+
+    /**
+     * 一个压测连接，只在压测线程中使用
+     */
+    private static class LoadConnection {
+        // 重新建连时替换为新的channel
+        private SocketChannel channel;
+        private SelectionKey key;
+        // 待写出的请求，处于写模式
+        private ByteBuffer writeBuffer;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        // 当前还没有收到\n的响应行的开头，只保留比拒绝响应多一个字节（\r）的部分，用于判断是否被拒绝
+        private final byte[] line;
+        private int lineLength;
+        // 已发出还没有响应的请求的计划发送时间和实际放入发送缓存的时间，按发送顺序排列
+        private final LongQueue intendedTimes = new LongQueue();
+        private final LongQueue sentTimes = new LongQueue();
+        private long nextIntendedTime;
+        // 当前channel上已经发送的请求数
+        private int sentRequests;
+        // 读写失败或者被服务端意外关闭，之后不再使用
+        private boolean failed;
+
+        LoadConnection(int requestLength, int rejectLength) {
+            this.line = new byte[rejectLength + 1];
+            this.writeBuffer = ByteBuffer.allocateDirect(Math.max(requestLength * 64, 4096));
+        }
+
+        void enqueue(byte[] request, long intendedTime, long now) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (writeBuffer.remaining() < request.length) {
+                ByteBuffer expanded = ByteBuffer.allocateDirect(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + request.length));
+                writeBuffer.flip();
+                expanded.put(writeBuffer);
+                writeBuffer = expanded;
+            }
+            writeBuffer.put(request);
+            sentRequests++;
+            intendedTimes.add(intendedTime);
+            sentTimes.add(now);
+        }
+
+        void appendLine(byte b) {
+            if (lineLength < line.length) {
+                line[lineLength] = b;
+            }
+            lineLength++;
+        }
+
+        /**
+         * 当前行是否和expected相同，忽略结尾的\r
+         */
+        boolean isLine(byte[] expected) {
+            int length = lineLength;
+            if (length > 0 && length <= line.length && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (line[i] != expected[i]) {
+                    return false;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+            }
+            return true;
+        }
+
+        void flush() throws IOException {
+            // 正在建连时等建连完成之后再写出
+            if (writeBuffer.position() == 0 || !channel.isOpen() || !channel.isConnected()) {
+                return;
+            }
+            writeBuffer.flip();
+            channel.write(writeBuffer);
+            writeBuffer.compact();
+            // 内核发送缓存已满时关注write事件
+            int ops = SelectionKey.OP_READ | (writeBuffer.position() > 0 ? SelectionKey.OP_WRITE : 0);
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
             }
         }
     }
 
+    /**
+     * 不装箱的long环形队列
+     */
+    private static class LongQueue {
+        private long[] elements = new long[64];
+        private int head;
+        private int size;
+
+        void add(long value) {
+            if (size == elements.length) {
+                long[] expanded = new long[elements.length * 2];
+                for (int i = 0; i < size; i++) {
+                    expanded[i] = elements[(head + i) % elements.length];
+                }
+                elements = expanded;
+                head = 0;
+            }
+            elements[(head + size) % elements.length] = value;
+            size++;
+        }
+
+        long poll() {
+            long value = elements[head];
+            head = (head + 1) % elements.length;
+            size--;
+            return value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
 }
@@ -0,0 +1,330 @@
+package com.io.nio.socket;
+
+import com.io.bio.socket.ConcurrentBioServerTest;
+import com.io.bio.socket.SimpleSocketRunnable;
+import com.io.log.AsyncLogger;
+import com.io.log.LogLevel;
+import com.io.nio.socket.aio.AioServer;
+import com.io.nio.socket.aio.AioServerBuilder;
+import com.io.nio.socket.metrics.Histogram;
+import com.io.nio.socket.selector.SelectorManager;
+import com.io.nio.socket.selector.SelectorManagerBuilder;
+import com.io.nio.socket.service.ExecutionStrategy;
+import com.io.nio.socket.service.impl.SimpleServiceImpl;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: TransportBenchmark
+ * @description: 在同一进程中依次启动BIO线程池、selector NIO和NIO.2三种服务（临时端口，只监听本机），
+ *              用TestNIOClient的压测引擎（closed模式，单线程驱动所有连接）按连接数和请求大小的组合逐一压测，
+ *              三种服务的延迟按同样的方式测量，输出吞吐量、延迟分位数、服务端线程数和每个请求的CPU时间。
+ *              每个组合一行JSON写入output指定的文件，同时在控制台打印表格。
+ *              vbio是每个连接一个虚拟线程的BIO服务，当前JDK不支持虚拟线程时和bio相同；线程数统计的是承载虚拟线程的平台线程。
+ *              参数为key=value形式，例如：transports=bio,vbio,nio,aio connections=1,16,64,256 payloads=16,1024,16384
+ *              warmup=1 duration=3 output=transport-benchmark.jsonl logLevel=WARN bioMaxRequests=1000。
+ *              请求大小指每个请求行的字节数（不含分隔符），三种服务的响应都是以\n结尾的固定短响应；
+ *              bio、vbio每个连接处理bioMaxRequests个请求后关闭连接，压测引擎随之重新建连，为1时每个请求都包括一次建连
+ * @date 2026年10月19日 18:40
+ */
+public class TransportBenchmark {
+
+    // 三种服务都不会拒绝请求，selector NIO和NIO.2的拒绝响应只用于区分被拒绝的请求
+    private static final byte[] REJECT_RESPONSE = "Server Busy!!!".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        new TransportBenchmark(CommandLineOptions.parse(args)).run();
+    }
+
+    private final String[] transports;
+    private final int[] connectionCounts;
+    private final int[] payloadSizes;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final String output;
+    // selector NIO的事件循环数和NIO.2的线程组大小
+    private final int ioThreads;
+    // BIO服务每个连接最多处理的请求数，0表示不限制
+    private final int bioMaxRequests;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private TransportBenchmark(CommandLineOptions options) {
+        this.transports = options.get("transports", "bio,nio,aio").split(",");
+        this.connectionCounts = options.getInts("connections", "1,16,64,256");
+        this.payloadSizes = options.getInts("payloads", "16,1024,16384");
+        this.warmupNanos = options.getSecondsAsNanos("warmup", 1);
+        this.durationNanos = options.getSecondsAsNanos("duration", 3);
+        this.output = options.get("output", "transport-benchmark.jsonl");
+        this.ioThreads = options.getInt("ioThreads", Runtime.getRuntime().availableProcessors());
+        this.bioMaxRequests = options.getInt("bioMaxRequests", SimpleSocketRunnable.DEFAULT_MAX_REQUESTS);
+        // 默认关闭每个请求的INFO日志，只测量传输方式本身的开销
+        AsyncLogger.setLevel(LogLevel.valueOf(options.get("logLevel", LogLevel.WARN.name())));
+        for (String transport : transports) {
+            if (!Arrays.asList("bio", "vbio", "nio", "aio").contains(transport)) {
+                throw new IllegalArgumentException("不支持的传输方式：" + transport + "，可选 bio、vbio、nio、aio");
+            }
+        }
+        for (int payload : payloadSizes) {
+            if (payload <= 0 || payload > 60 * 1024) {
+                throw new IllegalArgumentException("请求大小必须在1到61440之间：" + payload);
+            }
+        }
+        if (!threadMXBean.isThreadCpuTimeSupported()) {
+            throw new IllegalStateException("当前JVM不支持线程CPU时间，无法统计每个请求的CPU时间");
+        }
+        threadMXBean.setThreadCpuTimeEnabled(true);
+    }
+
+    private void run() throws Exception {
+        System.out.println(String.format("%-5s %6s %8s %12s %8s %8s %8s %8s %8s %8s %10s %8s %7s",
+                "mode", "conns", "payload", "req/s", "p50us", "p90us", "p99us", "p999us", "maxus", "threads", "cpuns/req",
+                "rejected", "errors"));
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8))) {
+            for (String transport : transports) {
+                for (int connections : connectionCounts) {
+                    for (int payload : payloadSizes) {
+                        Result result = runOne(transport, connections, payload);
+                        System.out.println(result.toTableRow());
+                        writer.println(result.toJson());
+                        writer.flush();
+                    }
+                }
+            }
+        }
+        System.out.println("结果已写入 " + Paths.get(output).toAbsolutePath());
+        // 业务线程池是进程内共享的，显式关闭才能让进程退出
+        CustomizedThreadPool.shutdown();
+    }
+
+    private Result runOne(String transport, int connections, int payload) throws Exception {
+        byte[] line = new byte[payload];
+        Arrays.fill(line, (byte) 'a');
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        Server server = startServer(transport, loopback);
+        try {
+            boolean bio = transport.endsWith("bio");
+            // BIO协议读到以end开头的行才响应
+            byte[] request = concat(line, bio ? "\nend\n".getBytes(StandardCharsets.UTF_8) : new byte[]{'\n'});
+            TestNIOClient client = new TestNIOClient(new InetSocketAddress(loopback, server.port), connections, false, 0,
+                    warmupNanos, durationNanos, request, REJECT_RESPONSE, bio ? bioMaxRequests : 0);
+            Map<Long, Long> cpuStart;
+            Map<Long, Long> cpuEnd;
+            long processCpuStart;
+            long processCpuEnd;
+            try {
+                client.connect();
+                long start = System.nanoTime();
+                long measureStart = start + warmupNanos;
+                long measureEnd = measureStart + durationNanos;
+                // 压测引擎在单独的线程中运行，本线程在测量阶段的起止时刻采样各线程的CPU时间
+                Thread loadThread = new Thread(() -> {
+                    try {
+                        client.run(start);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }, "load-generator");
+                loadThread.setDaemon(true);
+                loadThread.start();
+
+                Set<Long> excluded = new HashSet<>();
+                excluded.add(Thread.currentThread().getId());
+                excluded.add(loadThread.getId());
+                sleepUntil(measureStart);
+                cpuStart = threadCpuTimes(excluded);
+                processCpuStart = processCpuTime();
+                sleepUntil(measureEnd);
+                cpuEnd = threadCpuTimes(excluded);
+                processCpuEnd = processCpuTime();
+                loadThread.join();
+            } finally {
+                client.close();
+            }
+
+            // 测量阶段中消耗了CPU的非负载线程就是服务端用到的线程，空闲的残留线程不计入
+            long serverCpu = 0;
+            int serverThreads = 0;
+            for (Map.Entry<Long, Long> entry : cpuEnd.entrySet()) {
+                long used = entry.getValue() - cpuStart.getOrDefault(entry.getKey(), 0L);
+                if (used > 0) {
+                    serverCpu += used;
+                    serverThreads++;
+                }
+            }
+            return new Result(transport, connections, payload, durationNanos, client.getLatency(), client.getRejected(),
+                    client.getErrors(), serverThreads, serverCpu, processCpuStart < 0 ? -1 : processCpuEnd - processCpuStart);
+        } finally {
+            server.close();
+            // 等待上一轮的连接和线程退出，避免影响下一轮
+            Thread.sleep(500);
+        }
+    }
+
+    private Server startServer(String transport, InetAddress address) throws IOException {
+        switch (transport) {
+            case "bio":
+            case "vbio": {
+                ConcurrentBioServerTest bioServer = new ConcurrentBioServerTest(new InetSocketAddress(address, 0),
+                        "vbio".equals(transport), bioMaxRequests, SimpleSocketRunnable.DEFAULT_IDLE_TIMEOUT_MILLIS,
+                        SimpleSocketRunnable.DEFAULT_READ_TIMEOUT_MILLIS);
+                bioServer.start();
+                return new Server(bioServer.getPort(), bioServer::close);
+            }
+            case "nio": {
+                SelectorManager selectorManager = SelectorManagerBuilder.port(0)
+                        .eventLoopAccount(ioThreads)
+                        .serviceHandler(new SimpleServiceImpl(), ExecutionStrategy.inline())
+                        .build();
+                selectorManager.start();
+                return new Server(selectorManager.getPort(), selectorManager::close);
+            }
+            default: {
+                AioServer aioServer = AioServerBuilder.port(0)
+                        .threads(ioThreads)
+                        .serviceHandler(new SimpleServiceImpl(), ExecutionStrategy.inline())
+                        .build();
+                aioServer.start();
+                return new Server(aioServer.getPort(), aioServer::close);
+            }
+        }
+    }
+
+    private Map<Long, Long> threadCpuTimes(Set<Long> excluded) {
+        Map<Long, Long> times = new HashMap<>();
+        for (long id : threadMXBean.getAllThreadIds()) {
+            if (!excluded.contains(id)) {
+                long time = threadMXBean.getThreadCpuTime(id);
+                // 已经退出的线程返回-1
+                if (time >= 0) {
+                    times.put(id, time);
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * 整个进程的CPU时间，包括负载线程、GC和JIT；不支持时返回-1
+     */
+    private static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private interface Closer {
+        void close() throws IOException;
+    }
+
+    private static final class Server {
+        private final int port;
+        private final Closer closer;
+
+        private Server(int port, Closer closer) {
+            this.port = port;
+            this.closer = closer;
+        }
+
+        private void close() throws IOException {
+            closer.close();
+        }
+    }
+
+    private static final class Result {
+        private final String transport;
+        private final int connections;
+        private final int payload;
+        private final double seconds;
+        private final long requests;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+        private final long rejected;
+        private final long errors;
+        private final int serverThreads;
+        private final long serverCpuNanos;
+        private final long processCpuNanos;
+
+        private Result(String transport, int connections, int payload, long durationNanos, Histogram latency, long rejected,
+                       long errors, int serverThreads, long serverCpuNanos, long processCpuNanos) {
+            this.transport = transport;
+            this.connections = connections;
+            this.payload = payload;
+            this.seconds = durationNanos / 1e9;
+            this.requests = latency.getCount();
+            this.p50 = micros(latency.getValueAtPercentile(50));
+            this.p90 = micros(latency.getValueAtPercentile(90));
+            this.p99 = micros(latency.getValueAtPercentile(99));
+            this.p999 = micros(latency.getValueAtPercentile(99.9));
+            this.max = micros(latency.getMax());
+            this.rejected = rejected;
+            this.errors = errors;
+            this.serverThreads = serverThreads;
+            this.serverCpuNanos = serverCpuNanos;
+            this.processCpuNanos = processCpuNanos;
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+
+        private double throughput() {
+            return requests / seconds;
+        }
+
+        private long perRequest(long nanos) {
+            return requests == 0 || nanos < 0 ? -1 : nanos / requests;
+        }
+
+        private String toTableRow() {
+            return String.format("%-5s %6d %8d %12.1f %8d %8d %8d %8d %8d %8d %10d %8d %7d", transport, connections, payload,
+                    throughput(), p50, p90, p99, p999, max, serverThreads, perRequest(serverCpuNanos), rejected, errors);
+        }
+
+        private String toJson() {
+            return "{\"transport\":\"" + transport + "\",\"connections\":" + connections + ",\"payloadBytes\":" + payload
+                    + ",\"durationSeconds\":" + seconds + ",\"requests\":" + requests
+                    + ",\"throughput\":" + String.format("%.1f", throughput())
+                    + ",\"latencyMicros\":{\"p50\":" + p50 + ",\"p90\":" + p90 + ",\"p99\":" + p99 + ",\"p999\":" + p999
+                    + ",\"max\":" + max + "},\"rejected\":" + rejected + ",\"errors\":" + errors + ",\"serverThreads\":" + serverThreads
+                    + ",\"serverCpuNanosPerRequest\":" + perRequest(serverCpuNanos)
+                    + ",\"processCpuNanosPerRequest\":" + perRequest(processCpuNanos)
+                    + ",\"availableProcessors\":" + Runtime.getRuntime().availableProcessors()
+                    + ",\"javaVersion\":\"" + System.getProperty("java.version") + "\"}";
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.io.nio.socket.aio;
+
+import com.io.log.AsyncLogger;
+import com.io.nio.socket.codec.CumulativeDecoder;
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.selector.FileRegion;
+import com.io.nio.socket.service.ServiceConnection;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.InterruptedByTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: AioConnection
+ * @description: NIO.2传输方式下的一个客户端长连接。读写都是提交给AsynchronousSocketChannel的异步操作，
+ *              完成后由AsynchronousChannelGroup的线程回调CompletionHandler（proactor模型）。
+ *              同一时刻最多一个未完成的读和一个未完成的写：读完成之后才提交下一次读，写完成之后才从出站队列中取下一批数据；
+ *              读和写的回调可能同时发生在不同的线程中，共享的状态由连接对象的锁保护。
+ *              异步读在完成之前一直占用缓存区，所以每个连接独占一个接收缓存区，这是proactor模型相比selector模型的内存代价
+ * @date 2026年10月19日 16:30
+ */
+public class AioConnection implements ServiceConnection {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(AioConnection.class);
+
+    // 一次聚集写最多携带的buffer数量
+    private static final int MAX_GATHERING_BUFFERS = 64;
+    // 文件响应分块读入的缓存区大小
+    private static final int FILE_CHUNK_SIZE = 64 * 1024;
+
+    private static final CompletionHandler<Integer, AioConnection> READ_HANDLER = new CompletionHandler<Integer, AioConnection>() {
+        @Override
+        public void completed(Integer count, AioConnection connection) {
+            connection.onRead(count);
+        }
+
+        @Override
+        public void failed(Throwable e, AioConnection connection) {
+            connection.onFailed(e, true);
+        }
+    };
+
+    private static final CompletionHandler<Long, AioConnection> WRITE_HANDLER = new CompletionHandler<Long, AioConnection>() {
+        @Override
+        public void completed(Long written, AioConnection connection) {
+            connection.onWritten();
+        }
+
+        @Override
+        public void failed(Throwable e, AioConnection connection) {
+            connection.onFailed(e, false);
+        }
+    };
+
+    private final AioServer server;
+
+    private final AsynchronousSocketChannel channel;
+
+    private final SocketAddress remoteAddress;
+
+    // 该连接独占的帧解码器和不完整帧的残留字节，只在读回调中访问
+    private final CumulativeDecoder<Object> decoder;
+    // 该连接独占的接收缓存区，只在读回调中访问
+    private final ByteBuffer readBuffer;
+    // 同时处理的最大请求数，达到后暂停读取；按请求顺序响应的协议为1
+    private final int maxInFlightRequests;
+    // 是否多路复用，多路复用时超过同时处理上限的请求直接回复拒绝响应
+    private final boolean multiplexed;
+
+    // 以下状态由this保护
+    // 等待写出的ByteBuffer和FileRegion，按写出顺序排列
+    private final ArrayDeque<Object> outbound = new ArrayDeque<>();
+    // 是否有未完成的写，或者正在准备下一次写
+    private boolean writing;
+    // 是否有未完成的读，或者读回调即将提交下一次读
+    private boolean reading;
+    private int inFlightRequests;
+    // 客户端关闭了输出流或者协议要求关闭，响应写完之后关闭连接
+    private boolean closeAfterWrite;
+    private boolean closed;
+    // 未完成的读是在有处理中的请求时提交的，没有设置超时，空闲超时由服务端的定时器检查
+    private boolean untimedRead;
+    // 最后一个处理中的请求写完的时间，检查空闲超时时使用
+    private long lastActiveTime;
+
+    // 以下只由当前的写流程访问，同一时刻只有一个
+    private final ByteBuffer[] gathering = new ByteBuffer[MAX_GATHERING_BUFFERS];
+    // 文件响应的分块缓存区，第一次写文件时创建
+    private ByteBuffer fileBuffer;
+
+    AioConnection(AioServer server, AsynchronousSocketChannel channel, FrameDecoder<Object> frameDecoder,
+                  int receiveBufferSize, int maxInFlightRequests, boolean multiplexed) {
+        this.server = server;
+        this.channel = channel;
+        this.decoder = new CumulativeDecoder<>(frameDecoder);
+        this.readBuffer = ByteBuffer.allocateDirect(receiveBufferSize);
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.multiplexed = multiplexed;
+        this.remoteAddress = remoteAddress(channel);
+    }
+
+    private static SocketAddress remoteAddress(AsynchronousSocketChannel channel) {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void start() {
+        synchronized (this) {
+            reading = true;
+        }
+        read();
+    }
+
+    /**
+     * 提交一次异步读。有不完整的帧时等待剩余数据的时间为读超时；
+     * 有处理中的请求时和selector模型一样不算空闲，不设超时，否则为空闲超时。
+     * 异步读超时之后不能再在该连接上读取，所以不能先按空闲超时提交、超时后再重新读
+     */
+    private void read() {
+        long timeoutMillis;
+        synchronized (this) {
+            if (decoder.hasCumulation()) {
+                timeoutMillis = server.getReadTimeoutMillis();
+            } else if (inFlightRequests > 0) {
+                timeoutMillis = 0;
+            } else {
+                timeoutMillis = server.getIdleTimeoutMillis();
+            }
+            untimedRead = timeoutMillis == 0;
+        }
+        try {
+            channel.read(readBuffer, timeoutMillis, TimeUnit.MILLISECONDS, this, READ_HANDLER);
+        } catch (RuntimeException e) {
+            // 连接已经关闭等情况下直接抛出，而不是回调failed
+            onFailed(e, true);
+        }
+    }
+
+    private void onRead(int count) {
+        if (count == -1) {
+            boolean closeNow;
+            synchronized (this) {
+                reading = false;
+                untimedRead = false;
+                closeAfterWrite = true;
+                closeNow = inFlightRequests == 0 && !writing;
+            }
+            if (closeNow) {
+                close();
+            }
+            return;
+        }
+        List<Object> frames = new ArrayList<>();
+        readBuffer.flip();
+        try {
+            decoder.decode(readBuffer, frames);
+        } catch (IOException e) {
+            LOGGER.warn("请求解析失败，关闭连接 {}：{}", remoteAddress, e.getMessage());
+            close();
+            return;
+        } finally {
+            readBuffer.clear();
+        }
+        boolean continueReading;
+        int accepted = frames.size();
+        synchronized (this) {
+            untimedRead = false;
+            if (multiplexed) {
+                // 和selector模型相同，一次读取解析出的请求超过同时处理上限时，超出的请求按stream回复拒绝响应
+                accepted = Math.min(frames.size(), Math.max(maxInFlightRequests - inFlightRequests, 0));
+            }
+            inFlightRequests += frames.size();
+            if (decoder.isCloseRequested()) {
+                closeAfterWrite = true;
+            }
+            // 处理期间（多路复用时直到达到同时处理的上限）不再读取，响应写完之后由写回调重新开始读取
+            continueReading = !closeAfterWrite && inFlightRequests < maxInFlightRequests;
+            reading = continueReading;
+        }
+        if (accepted < frames.size()) {
+            server.getFrameDispatcher().reject(this, frames.subList(accepted, frames.size()));
+            frames = frames.subList(0, accepted);
+        }
+        if (!frames.isEmpty()) {
+            server.getFrameDispatcher().dispatch(this, frames);
+        }
+        if (continueReading) {
+            read();
+        }
+    }
+
+    @Override
+    public void write(Object responseData, Runnable onQueued) {
+        if (!ServiceConnection.isSupported(responseData)) {
+            LOGGER.warn("不支持的响应类型：{}，关闭连接", responseData.getClass().getName());
+            ServiceConnection.discard(responseData);
+            close();
+            return;
+        }
+        boolean startWrite;
+        synchronized (this) {
+            if (closed) {
+                ServiceConnection.discard(responseData);
+                return;
+            }
+            enqueue(responseData);
+            inFlightRequests--;
+            startWrite = !writing;
+            writing = true;
+        }
+        if (onQueued != null) {
+            onQueued.run();
+        }
+        if (startWrite) {
+            writeNext();
+        }
+    }
+
+    private void enqueue(Object responseData) {
+        if (responseData instanceof List) {
+            for (Object part : (List<?>) responseData) {
+                enqueue(part);
+            }
+        } else if (responseData instanceof String) {
+            if (!((String) responseData).isEmpty()) {
+                outbound.addLast(ByteBuffer.wrap(((String) responseData).getBytes(StandardCharsets.UTF_8)));
+            }
+        } else if (responseData instanceof ByteBuffer) {
+            if (((ByteBuffer) responseData).hasRemaining()) {
+                outbound.addLast(((ByteBuffer) responseData).duplicate());
+            }
+        } else if (responseData instanceof FileRegion) {
+            outbound.addLast(responseData);
+        }
+    }
+
+    /**
+     * 从出站队列中取下一批数据提交一次异步写：队首连续的buffer聚集写出，文件区域分块读入缓存区后写出。
+     * 队列已经写空时结束写流程，按连接状态关闭连接或者重新开始读取
+     */
+    private void writeNext() {
+        int length = 0;
+        boolean resumeRead = false;
+        boolean closeNow = false;
+        boolean checkIdle = false;
+        try {
+            synchronized (this) {
+                while (!outbound.isEmpty() && length == 0) {
+                    Object head = outbound.peekFirst();
+                    if (head instanceof FileRegion) {
+                        if (fileBuffer == null) {
+                            fileBuffer = ByteBuffer.allocateDirect(FILE_CHUNK_SIZE);
+                            fileBuffer.limit(0);
+                        }
+                        if (!fileBuffer.hasRemaining()) {
+                            fileBuffer.clear();
+                            if (((FileRegion) head).read(fileBuffer) == -1) {
+                                // 文件区域已经写完
+                                outbound.pollFirst();
+                                ((FileRegion) head).close();
+                                fileBuffer.limit(0);
+                                continue;
+                            }
+                            fileBuffer.flip();
+                        }
+                        gathering[length++] = fileBuffer;
+                    } else {
+                        for (Object entry : outbound) {
+                            if (length == MAX_GATHERING_BUFFERS || !(entry instanceof ByteBuffer)) {
+                                break;
+                            }
+                            gathering[length++] = (ByteBuffer) entry;
+                        }
+                    }
+                }
+                if (length == 0) {
+                    writing = false;
+                    if (closeAfterWrite) {
+                        closeNow = inFlightRequests == 0;
+                    } else if (!reading && inFlightRequests < maxInFlightRequests) {
+                        reading = true;
+                        resumeRead = true;
+                    } else if (untimedRead && inFlightRequests == 0) {
+                        // 处理中的请求全部写完，等待中的读没有超时，从现在开始计算空闲时间
+                        lastActiveTime = System.currentTimeMillis();
+                        checkIdle = true;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            onFailed(e, false);
+            return;
+        }
+        if (length > 0) {
+            try {
+                channel.write(gathering, 0, length, server.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS, this, WRITE_HANDLER);
+            } catch (RuntimeException e) {
+                onFailed(e, false);
+            }
+        } else if (closeNow) {
+            close();
+        } else if (resumeRead) {
+            read();
+        } else if (checkIdle) {
+            server.schedule(this::checkIdle, server.getIdleTimeoutMillis());
+        }
+    }
+
+    /**
+     * 没有设置超时的读等待期间，由服务端的定时器检查空闲超时。
+     * 读已经完成或者又有了处理中的请求时不再检查，之后再次空闲时会重新开始检查
+     */
+    private void checkIdle() {
+        long remaining;
+        synchronized (this) {
+            if (closed || !untimedRead || inFlightRequests > 0 || writing) {
+                return;
+            }
+            remaining = lastActiveTime + server.getIdleTimeoutMillis() - System.currentTimeMillis();
+        }
+        if (remaining > 0) {
+            server.schedule(this::checkIdle, remaining);
+            return;
+        }
+        server.recordTimeout(true);
+        LOGGER.info("空闲超时，关闭连接 {}", remoteAddress);
+        close();
+    }
+
+    private void onWritten() {
+        synchronized (this) {
+            Arrays.fill(gathering, null);
+            // 文件缓存区不在队列中，写完的buffer从队首移除
+            while (!outbound.isEmpty() && outbound.peekFirst() instanceof ByteBuffer
+                    && !((ByteBuffer) outbound.peekFirst()).hasRemaining()) {
+                outbound.pollFirst();
+            }
+        }
+        writeNext();
+    }
+
+    private void onFailed(Throwable e, boolean read) {
+        if (e instanceof InterruptedByTimeoutException) {
+            server.recordTimeout(read);
+            LOGGER.info("{}超时，关闭连接 {}", read ? "读" : "写", remoteAddress);
+        } else if (isOpen()) {
+            LOGGER.warn("连接 {} {}失败：{}", remoteAddress, read ? "读" : "写", e.toString());
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        List<Object> discarded;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            discarded = new ArrayList<>(outbound);
+            outbound.clear();
+        }
+        for (Object entry : discarded) {
+            ServiceConnection.discard(entry);
+        }
+        try {
+            LOGGER.info("closed....... {}", remoteAddress);
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        server.connectionClosed();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+}
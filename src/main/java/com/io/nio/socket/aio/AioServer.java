@@ -0,0 +1,201 @@
+package com.io.nio.socket.aio;
+
+import com.io.log.AsyncLogger;
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.service.FrameDispatcher;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author heshuai
+ * @title: AioServer
+ * @description: 基于NIO.2 AsynchronousServerSocketChannel的服务端传输方式（proactor模型），可以替代SelectorManager。
+ *              accept、读、写都是异步操作，由AsynchronousChannelGroup的线程回调完成处理；
+ *              帧解码器、ServiceHandler、执行策略、并发限制和拒绝响应和selector模型完全相同，同一个业务处理器可以不加修改地运行在两种模型上，
+ *              便于在同样的负载下比较两者的吞吐量
+ * @date 2026年10月19日 16:50
+ */
+public class AioServer {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(AioServer.class);
+
+    private static final CompletionHandler<AsynchronousSocketChannel, AioServer> ACCEPT_HANDLER =
+            new CompletionHandler<AsynchronousSocketChannel, AioServer>() {
+                @Override
+                public void completed(AsynchronousSocketChannel channel, AioServer server) {
+                    // 先提交下一次accept，再初始化当前连接
+                    server.acceptNext();
+                    server.accepted(channel);
+                }
+
+                @Override
+                public void failed(Throwable e, AioServer server) {
+                    if (server.serverChannel.isOpen()) {
+                        LOGGER.warn("accept失败：{}", e.toString());
+                        server.acceptNext();
+                    }
+                }
+            };
+
+    private final int port;
+    // 为null时由start创建，close时一起关闭
+    private AsynchronousChannelGroup channelGroup;
+    private final boolean ownChannelGroup;
+    private final int threads;
+    private final Supplier<FrameDecoder<Object>> frameDecoderFactory;
+    private final FrameDispatcher frameDispatcher;
+    private final boolean multiplexed;
+    private final int maxConcurrentStreams;
+    private final long idleTimeoutMillis;
+    private final long readTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final int receiveBufferSize;
+
+    private AsynchronousServerSocketChannel serverChannel;
+    // 检查没有设置超时的异步读的空闲超时，见AioConnection.read
+    private ScheduledExecutorService timer;
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+
+    private final AtomicLong readTimeouts = new AtomicLong();
+
+    private final AtomicLong writeTimeouts = new AtomicLong();
+
+    AioServer(AioServerBuilder builder) {
+        this.port = builder.getPort();
+        this.channelGroup = builder.getChannelGroup();
+        this.ownChannelGroup = channelGroup == null;
+        this.threads = builder.getThreads();
+        this.frameDecoderFactory = builder.getFrameDecoderFactory();
+        this.frameDispatcher = new FrameDispatcher(builder.getServiceHandler(), builder.getExecutionStrategy(),
+                builder.getRejectResponse(), !builder.isMultiplexed());
+        this.multiplexed = builder.isMultiplexed();
+        this.maxConcurrentStreams = builder.getMaxConcurrentStreams();
+        this.idleTimeoutMillis = builder.getIdleTimeoutMillis();
+        this.readTimeoutMillis = builder.getReadTimeoutMillis();
+        this.writeTimeoutMillis = builder.getWriteTimeoutMillis();
+        this.receiveBufferSize = builder.getReceiveBufferSize();
+    }
+
+    /**
+     * 监听端口并开始接受连接，立即返回，之后的工作全部在AsynchronousChannelGroup的线程中进行
+     */
+    public void start() throws IOException {
+        if (channelGroup == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            channelGroup = AsynchronousChannelGroup.withFixedThreadPool(threads,
+                    r -> new Thread(r, "aio-" + threadNumber.incrementAndGet()));
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "aio-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        serverChannel = AsynchronousServerSocketChannel.open(channelGroup);
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.accept(this, ACCEPT_HANDLER);
+    }
+
+    private void acceptNext() {
+        if (serverChannel.isOpen()) {
+            serverChannel.accept(this, ACCEPT_HANDLER);
+        }
+    }
+
+    private void accepted(AsynchronousSocketChannel channel) {
+        connectionCount.incrementAndGet();
+        acceptedCount.incrementAndGet();
+        AioConnection connection = new AioConnection(this, channel, frameDecoderFactory.get(), receiveBufferSize,
+                multiplexed ? maxConcurrentStreams : 1, multiplexed);
+        connection.start();
+    }
+
+    FrameDispatcher getFrameDispatcher() {
+        return frameDispatcher;
+    }
+
+    void connectionClosed() {
+        connectionCount.decrementAndGet();
+    }
+
+    void schedule(Runnable task, long delayMillis) {
+        try {
+            timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 服务已经关闭
+        }
+    }
+
+    void recordTimeout(boolean read) {
+        (read ? readTimeouts : writeTimeouts).incrementAndGet();
+    }
+
+    /**
+     * 停止接受新连接；channelGroup由本服务创建时一起关闭，已有的连接随之关闭
+     */
+    public void close() throws IOException {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (ownChannelGroup && channelGroup != null) {
+            channelGroup.shutdownNow();
+        }
+    }
+
+    /**
+     * 实际监听的端口，端口配置为0时由系统分配
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    /**
+     * 读超时包括空闲超时，两者都表现为异步读在超时时间内没有完成
+     */
+    public long getReadTimeouts() {
+        return readTimeouts.get();
+    }
+
+    public long getWriteTimeouts() {
+        return writeTimeouts.get();
+    }
+
+    long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+}
@@ -0,0 +1,238 @@
+package com.io.nio.socket.aio;
+
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.codec.LineFrameDecoder;
+import com.io.nio.socket.codec.http.HttpRequestDecoder;
+import com.io.nio.socket.codec.mux.MuxFrameDecoder;
+import com.io.nio.socket.selector.SelectorManagerBuilder;
+import com.io.nio.socket.service.ExecutionStrategy;
+import com.io.nio.socket.service.ServiceHandler;
+import com.io.nio.socket.service.http.HttpRouter;
+import com.io.nio.socket.service.impl.SimpleServiceImpl;
+import com.io.nio.socket.service.mux.MuxHandler;
+import com.io.nio.socket.service.mux.MuxServiceHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.function.Supplier;
+
+/**
+ * @author heshuai
+ * @title: AioServerBuilder
+ * @description: 构建一个AioServer，协议和业务处理相关的配置和SelectorManagerBuilder一致，默认值也相同
+ * @date 2026年10月19日 17:00
+ */
+public class AioServerBuilder {
+
+    public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 1024;
+
+    private final int port;
+    // 执行回调的线程组，为null时创建一个threads个线程的固定线程组
+    private AsynchronousChannelGroup channelGroup;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Supplier<? extends FrameDecoder<?>> frameDecoderFactory = LineFrameDecoder::new;
+    private ServiceHandler<?> serviceHandler = new SimpleServiceImpl();
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.sharedPool();
+    private String rejectResponse = SelectorManagerBuilder.DEFAULT_REJECT_RESPONSE;
+    private boolean multiplexed;
+    private int maxConcurrentStreams = SelectorManagerBuilder.DEFAULT_MAX_CONCURRENT_STREAMS;
+    private long idleTimeoutMillis = SelectorManagerBuilder.DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private long readTimeoutMillis = SelectorManagerBuilder.DEFAULT_READ_TIMEOUT_MILLIS;
+    private long writeTimeoutMillis = SelectorManagerBuilder.DEFAULT_WRITE_TIMEOUT_MILLIS;
+    // 每个连接独占的接收缓存区大小，异步读未完成期间一直被占用
+    private int receiveBufferSize = DEFAULT_RECEIVE_BUFFER_SIZE;
+
+    private AioServerBuilder(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @param port 监听的端口，为0时由系统分配，启动后通过AioServer.getPort获取
+     */
+    public static AioServerBuilder port(int port) {
+        return new AioServerBuilder(port);
+    }
+
+    /**
+     * 使用外部创建的线程组，多个服务可以共用；外部线程组由调用方负责关闭
+     */
+    public AioServerBuilder channelGroup(AsynchronousChannelGroup channelGroup) {
+        this.channelGroup = channelGroup;
+        return this;
+    }
+
+    /**
+     * 没有指定channelGroup时，创建的固定线程组的线程数
+     */
+    public AioServerBuilder threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public AioServerBuilder frameDecoder(Supplier<? extends FrameDecoder<ByteBuffer>> frameDecoderFactory) {
+        this.frameDecoderFactory = frameDecoderFactory;
+        leaveMux();
+        return this;
+    }
+
+    public AioServerBuilder serviceHandler(ServiceHandler<ByteBuffer> serviceHandler) {
+        this.serviceHandler = serviceHandler;
+        leaveMux();
+        return this;
+    }
+
+    public AioServerBuilder serviceHandler(ServiceHandler<ByteBuffer> serviceHandler, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return serviceHandler(serviceHandler);
+    }
+
+    public <T> AioServerBuilder codec(Supplier<? extends FrameDecoder<T>> frameDecoderFactory, ServiceHandler<T> serviceHandler) {
+        this.frameDecoderFactory = frameDecoderFactory;
+        this.serviceHandler = serviceHandler;
+        leaveMux();
+        return this;
+    }
+
+    public <T> AioServerBuilder codec(Supplier<? extends FrameDecoder<T>> frameDecoderFactory, ServiceHandler<T> serviceHandler,
+                                      ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return codec(frameDecoderFactory, serviceHandler);
+    }
+
+    /**
+     * 在mux之后替换帧解码器或业务处理器时，不再按多路复用协议处理，拒绝响应也恢复为按行分隔的默认值
+     */
+    private void leaveMux() {
+        if (multiplexed) {
+            multiplexed = false;
+            rejectResponse = SelectorManagerBuilder.DEFAULT_REJECT_RESPONSE;
+        }
+    }
+
+    public AioServerBuilder http(HttpRouter router) {
+        codec(HttpRequestDecoder::new, router);
+        this.rejectResponse = "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n";
+        return this;
+    }
+
+    public AioServerBuilder http(HttpRouter router, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return http(router);
+    }
+
+    public AioServerBuilder mux(MuxHandler handler) {
+        codec(MuxFrameDecoder::new, new MuxServiceHandler(handler));
+        this.rejectResponse = "Server Busy!!!";
+        this.multiplexed = true;
+        return this;
+    }
+
+    public AioServerBuilder mux(MuxHandler handler, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return mux(handler);
+    }
+
+    public AioServerBuilder maxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    public AioServerBuilder idleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public AioServerBuilder readTimeoutMillis(long readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    public AioServerBuilder writeTimeoutMillis(long writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        return this;
+    }
+
+    public AioServerBuilder receiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+        return this;
+    }
+
+    public AioServerBuilder rejectResponse(String rejectResponse) {
+        this.rejectResponse = rejectResponse;
+        return this;
+    }
+
+    public AioServer build() {
+        if (channelGroup == null && threads <= 0) {
+            throw new IllegalArgumentException("threads 必须大于0");
+        }
+        if (idleTimeoutMillis <= 0 || readTimeoutMillis <= 0 || writeTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis、readTimeoutMillis 和 writeTimeoutMillis 必须大于0");
+        }
+        if (maxConcurrentStreams <= 0 || receiveBufferSize <= 0) {
+            throw new IllegalArgumentException("maxConcurrentStreams 和 receiveBufferSize 必须大于0");
+        }
+        if (frameDecoderFactory == null) {
+            throw new IllegalArgumentException("frameDecoderFactory 不可以为空");
+        }
+        if (serviceHandler == null || executionStrategy == null) {
+            throw new IllegalArgumentException("serviceHandler 和 executionStrategy 不可以为空");
+        }
+        return new AioServer(this);
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    AsynchronousChannelGroup getChannelGroup() {
+        return channelGroup;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    @SuppressWarnings("unchecked")
+    Supplier<FrameDecoder<Object>> getFrameDecoderFactory() {
+        Supplier<? extends FrameDecoder<?>> factory = frameDecoderFactory;
+        return () -> (FrameDecoder<Object>) factory.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    ServiceHandler<Object> getServiceHandler() {
+        return (ServiceHandler<Object>) serviceHandler;
+    }
+
+    ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    String getRejectResponse() {
+        return rejectResponse;
+    }
+
+    boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+}
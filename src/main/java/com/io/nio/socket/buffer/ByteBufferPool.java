@@ -0,0 +1,129 @@
+package com.io.nio.socket.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: ByteBufferPool
+ * @description: 按大小分级的直接内存ByteBuffer池，每个selector线程持有一个，非线程安全，
+ *              只能由所属的线程借出和归还。直接内存在写入SocketChannel时不需要再经过JDK内部的临时直接缓存拷贝一次。
+ *              超过最大一级的申请返回堆内存buffer，不缓存也不占用直接内存，避免大响应反复分配、回收直接内存
+ * @date 2026年10月18日 11:20
+ */
+public class ByteBufferPool {
+
+    public static final int DEFAULT_MIN_CLASS_SIZE = 512;
+
+    public static final int DEFAULT_MAX_CLASS_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_MAX_CACHED_PER_CLASS = 64;
+
+    // 最小一级的大小，每一级是上一级的两倍
+    private final int minClassSize;
+    // 最大一级的大小，超过这个大小的申请不走池化
+    private final int maxClassSize;
+    // 每一级最多缓存的buffer数量
+    private final int maxCachedPerClass;
+    // 每一级空闲的buffer
+    private final List<ArrayDeque<ByteBuffer>> freeLists;
+    private final int minShift;
+
+    // 以下指标只由所属线程写入，其他线程只读
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long outstandingBytes;
+
+    public ByteBufferPool() {
+        this(DEFAULT_MIN_CLASS_SIZE, DEFAULT_MAX_CLASS_SIZE, DEFAULT_MAX_CACHED_PER_CLASS);
+    }
+
+    public ByteBufferPool(int minClassSize, int maxClassSize, int maxCachedPerClass) {
+        if (Integer.bitCount(minClassSize) != 1 || Integer.bitCount(maxClassSize) != 1 || minClassSize > maxClassSize) {
+            throw new IllegalArgumentException("minClassSize和maxClassSize必须是2的幂，并且minClassSize不能大于maxClassSize");
+        }
+        this.minClassSize = minClassSize;
+        this.maxClassSize = maxClassSize;
+        this.maxCachedPerClass = maxCachedPerClass;
+        this.minShift = Integer.numberOfTrailingZeros(minClassSize);
+        int classCount = Integer.numberOfTrailingZeros(maxClassSize) - minShift + 1;
+        this.freeLists = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            freeLists.add(new ArrayDeque<>(maxCachedPerClass));
+        }
+    }
+
+    /**
+     * 借出一个容量不小于capacity的buffer，使用完毕之后必须调用release归还
+     * @param capacity 需要的最小容量
+     * @return position为0、limit为capacity的buffer
+     */
+    public ByteBuffer acquire(int capacity) {
+        ByteBuffer buffer;
+        if (capacity > maxClassSize) {
+            // 超大的申请不缓存，使用堆内存，由GC回收
+            misses++;
+            buffer = ByteBuffer.allocate(capacity);
+        } else {
+            int index = classIndex(capacity);
+            buffer = freeLists.get(index).pollFirst();
+            if (buffer == null) {
+                misses++;
+                buffer = ByteBuffer.allocateDirect(minClassSize << index);
+            } else {
+                hits++;
+            }
+        }
+        outstandingBytes += buffer.capacity();
+        buffer.limit(capacity);
+        return buffer;
+    }
+
+    /**
+     * 归还一个通过acquire借出的buffer
+     * @param buffer 借出的buffer，归还后调用方不可再使用
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        outstandingBytes -= capacity;
+        if (!buffer.isDirect() || capacity > maxClassSize || capacity < minClassSize || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        ArrayDeque<ByteBuffer> freeList = freeLists.get(classIndex(capacity));
+        if (freeList.size() < maxCachedPerClass) {
+            buffer.clear();
+            // 后进先出，刚归还的buffer更可能还在cpu缓存中
+            freeList.offerFirst(buffer);
+        }
+    }
+
+    private int classIndex(int capacity) {
+        if (capacity <= minClassSize) {
+            return 0;
+        }
+        // 向上取整到2的幂，再换算成级别下标
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minShift;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getOutstandingBytes() {
+        return outstandingBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteBufferPool{hits=" + hits + ", misses=" + misses + ", outstandingBytes=" + outstandingBytes + "}";
+    }
+}
@@ -0,0 +1,68 @@
+package com.io.nio.socket.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: CumulativeDecoder
+ * @description: 在FrameDecoder外面维护上次读取后还没有组成完整帧的字节，每个连接一个，selector模型和NIO.2模型共用。
+ *              没有残留字节时直接在本次读到的数据上解析，只有不完整的尾部才会拷贝到残留缓存中；残留缓存在堆上，按两倍扩容，
+ *              帧的最大长度由解码器限制。不是线程安全的，同一时刻只能有一个线程解析
+ * @date 2026年10月19日 21:10
+ */
+public class CumulativeDecoder<T> {
+
+    private final FrameDecoder<T> frameDecoder;
+    // 上次读取后还没有组成完整帧的字节，处于写模式；为空表示没有残留
+    private ByteBuffer cumulation;
+
+    public CumulativeDecoder(FrameDecoder<T> frameDecoder) {
+        this.frameDecoder = frameDecoder;
+    }
+
+    /**
+     * 将本次读到的数据拼接在残留字节之后交给帧解码器
+     * @param in 处于读模式的本次读取的数据，调用结束后会被全部消费
+     * @param frames 解析出的完整帧
+     */
+    public void decode(ByteBuffer in, List<T> frames) throws FrameDecodeException {
+        if (!hasCumulation()) {
+            frameDecoder.decode(in, frames);
+            if (in.hasRemaining()) {
+                appendCumulation(in);
+            }
+            return;
+        }
+        appendCumulation(in);
+        cumulation.flip();
+        try {
+            frameDecoder.decode(cumulation, frames);
+        } finally {
+            cumulation.compact();
+        }
+    }
+
+    private void appendCumulation(ByteBuffer in) {
+        if (cumulation == null) {
+            cumulation = ByteBuffer.allocate(Math.max(in.remaining(), 256));
+        } else if (cumulation.remaining() < in.remaining()) {
+            ByteBuffer expanded = ByteBuffer.allocate(Math.max(cumulation.capacity() * 2, cumulation.position() + in.remaining()));
+            cumulation.flip();
+            expanded.put(cumulation);
+            cumulation = expanded;
+        }
+        cumulation.put(in);
+    }
+
+    /**
+     * 是否已经读到一个请求的部分数据，正在等待剩余的数据
+     */
+    public boolean hasCumulation() {
+        return cumulation != null && cumulation.position() > 0;
+    }
+
+    public boolean isCloseRequested() {
+        return frameDecoder.isCloseRequested();
+    }
+}
@@ -0,0 +1,77 @@
+package com.io.nio.socket.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: FixedHeaderFrameDecoder
+ * @description: 固定长度帧头的帧解码器，帧头中的长度字段（大端无符号整数）表示帧体的长度
+ * @date 2026年10月18日 14:05
+ */
+public class FixedHeaderFrameDecoder implements FrameDecoder<ByteBuffer> {
+
+    // 帧头长度
+    private final int headerLength;
+    // 长度字段在帧头中的偏移量
+    private final int lengthFieldOffset;
+    // 长度字段的字节数，只支持1、2、4
+    private final int lengthFieldSize;
+    // 帧体的最大长度
+    private final int maxBodyLength;
+    // 交给业务处理的帧是否去掉帧头
+    private final boolean stripHeader;
+    // 当前帧的帧体长度，-1表示帧头还未读完
+    private int bodyLength = -1;
+
+    public FixedHeaderFrameDecoder(int headerLength, int lengthFieldOffset, int lengthFieldSize,
+                                   int maxBodyLength, boolean stripHeader) {
+        if (lengthFieldSize != 1 && lengthFieldSize != 2 && lengthFieldSize != 4) {
+            throw new IllegalArgumentException("lengthFieldSize 只能是1、2、4");
+        }
+        if (lengthFieldOffset < 0 || lengthFieldOffset + lengthFieldSize > headerLength) {
+            throw new IllegalArgumentException("长度字段必须位于帧头内");
+        }
+        this.headerLength = headerLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldSize = lengthFieldSize;
+        this.maxBodyLength = maxBodyLength;
+        this.stripHeader = stripHeader;
+    }
+
+    @Override
+    public void decode(ByteBuffer in, List<ByteBuffer> frames) throws FrameDecodeException {
+        while (true) {
+            if (bodyLength == -1) {
+                if (in.remaining() < headerLength) {
+                    return;
+                }
+                bodyLength = readLength(in, in.position() + lengthFieldOffset);
+                if (bodyLength < 0 || bodyLength > maxBodyLength) {
+                    throw new FrameDecodeException("帧体长度不合法: " + bodyLength);
+                }
+            }
+            if (in.remaining() < headerLength + bodyLength) {
+                return;
+            }
+            if (stripHeader) {
+                in.position(in.position() + headerLength);
+                frames.add(FrameDecoder.readFrame(in, bodyLength));
+            } else {
+                frames.add(FrameDecoder.readFrame(in, headerLength + bodyLength));
+            }
+            bodyLength = -1;
+        }
+    }
+
+    private int readLength(ByteBuffer in, int index) {
+        switch (lengthFieldSize) {
+            case 1:
+                return in.get(index) & 0xFF;
+            case 2:
+                return in.getShort(index) & 0xFFFF;
+            default:
+                return in.getInt(index);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.io.nio.socket.codec;
+
+import java.io.IOException;
+
+/**
+ * @author heshuai
+ * @title: FrameDecodeException
+ * @description: 帧过长或者帧头格式错误
+ * @date 2026年10月18日 13:32
+ */
+public class FrameDecodeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FrameDecodeException(String message) {
+        super(message);
+    }
+}
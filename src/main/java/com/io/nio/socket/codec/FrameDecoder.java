@@ -0,0 +1,44 @@
+package com.io.nio.socket.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: FrameDecoder
+ * @description: 有状态的增量帧解码器，每个连接独占一个实例，可以跨多次read事件继续解析同一帧；
+ *              T是解析出的请求类型，字节帧协议为ByteBuffer，HTTP等协议为解析好的请求对象
+ * @date 2026年10月18日 13:30
+ */
+public interface FrameDecoder<T> {
+
+    /**
+     * 从in中解析出尽可能多的完整帧放入frames中。
+     * 每解析出一帧就消费掉该帧对应的字节，剩余不完整的字节保留在in中（position指向未完成帧的起始位置），
+     * 下次读到更多数据后由调用方拼接在这些字节之后再次调用
+     * @param in 处于读模式的入站数据
+     * @param frames 解析出的完整帧，字节帧是独立的、处于读模式的buffer
+     * @throws FrameDecodeException 帧超过最大长度或者格式错误，调用方应当关闭连接
+     */
+    void decode(ByteBuffer in, List<T> frames) throws FrameDecodeException;
+
+    /**
+     * 协议要求在已解析请求的响应写完之后关闭连接（例如HTTP的Connection: close），此后不再解析新的请求
+     */
+    default boolean isCloseRequested() {
+        return false;
+    }
+
+    /**
+     * 将in中从position开始的length个字节拷贝为一个独立的帧，并消费这些字节
+     */
+    static ByteBuffer readFrame(ByteBuffer in, int length) {
+        ByteBuffer frame = ByteBuffer.allocate(length);
+        int limit = in.limit();
+        in.limit(in.position() + length);
+        frame.put(in);
+        in.limit(limit);
+        frame.flip();
+        return frame;
+    }
+}
@@ -0,0 +1,14 @@
+package com.io.nio.socket.codec;
+
+/**
+ * @author heshuai
+ * @title: LengthFieldFrameDecoder
+ * @description: 长度前缀帧解码器，帧以大端无符号长度字段开头，交给业务处理的帧不包含长度字段
+ * @date 2026年10月18日 14:20
+ */
+public class LengthFieldFrameDecoder extends FixedHeaderFrameDecoder {
+
+    public LengthFieldFrameDecoder(int lengthFieldSize, int maxFrameLength) {
+        super(lengthFieldSize, 0, lengthFieldSize, maxFrameLength, true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.io.nio.socket.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: LineFrameDecoder
+ * @description: 以\n（或\r\n）分隔的帧解码器，帧中不包含分隔符
+ * @date 2026年10月18日 13:40
+ */
+public class LineFrameDecoder implements FrameDecoder<ByteBuffer> {
+
+    public static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1024;
+
+    private final int maxLineLength;
+    // 未完成的行中已经扫描过的字节数，下次从这里继续查找分隔符，避免重复扫描
+    private int scannedLength;
+
+    public LineFrameDecoder() {
+        this(DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public LineFrameDecoder(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    @Override
+    public void decode(ByteBuffer in, List<ByteBuffer> frames) throws FrameDecodeException {
+        while (in.hasRemaining()) {
+            int start = in.position();
+            int end = in.limit();
+            int delimiter = -1;
+            for (int i = start + scannedLength; i < end; i++) {
+                if (in.get(i) == '\n') {
+                    delimiter = i;
+                    break;
+                }
+            }
+            if (delimiter == -1) {
+                scannedLength = end - start;
+                if (scannedLength > maxLineLength) {
+                    throw new FrameDecodeException("行长度超过最大值 " + maxLineLength);
+                }
+                return;
+            }
+            scannedLength = 0;
+            int length = delimiter - start;
+            if (length > 0 && in.get(delimiter - 1) == '\r') {
+                length--;
+            }
+            if (length > maxLineLength) {
+                throw new FrameDecodeException("行长度超过最大值 " + maxLineLength);
+            }
+            frames.add(FrameDecoder.readFrame(in, length));
+            // 跳过分隔符
+            in.position(delimiter + 1);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.io.nio.socket.codec.http;
+
+import com.io.nio.socket.codec.FrameDecodeException;
+
+/**
+ * @author heshuai
+ * @title: HttpDecodeException
+ * @description: HTTP请求格式错误，带有应当回复给客户端的状态码。只在解码器内部使用，
+ *              解码器捕获后转换为错误请求交给HttpRouter回复
+ * @date 2026年10月19日 22:10
+ */
+class HttpDecodeException extends FrameDecodeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int BAD_REQUEST = 400;
+    static final int PAYLOAD_TOO_LARGE = 413;
+    static final int HTTP_VERSION_NOT_SUPPORTED = 505;
+
+    private final int status;
+
+    HttpDecodeException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getReason() {
+        switch (status) {
+            case PAYLOAD_TOO_LARGE:
+                return "Payload Too Large";
+            case HTTP_VERSION_NOT_SUPPORTED:
+                return "HTTP Version Not Supported";
+            default:
+                return "Bad Request";
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.io.nio.socket.codec.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author heshuai
+ * @title: HttpRequest
+ * @description: 解析完成的HTTP/1.x请求。常用的首部（Content-Length、Transfer-Encoding、Connection）在解析时已经处理，
+ *              其余首部保留原始字节，调用getHeader时才扫描并创建String
+ * @date 2026年10月18日 21:10
+ */
+public class HttpRequest {
+
+    private final String method;
+    private final String uri;
+    private final String path;
+    private final boolean http11;
+    private final boolean keepAlive;
+    // 请求行和首部的原始字节，不包含末尾的空行
+    private final byte[] head;
+    // 请求体，处于读模式；没有请求体时为空buffer
+    private final ByteBuffer body;
+    // 请求格式错误时应当回复的状态码，正常请求为0
+    private final int errorStatus;
+    private final String errorReason;
+    private final String errorMessage;
+
+    HttpRequest(String method, String uri, boolean http11, boolean keepAlive, byte[] head, ByteBuffer body) {
+        this(method, uri, http11, keepAlive, head, body, 0, null, null);
+    }
+
+    private HttpRequest(String method, String uri, boolean http11, boolean keepAlive, byte[] head, ByteBuffer body,
+                        int errorStatus, String errorReason, String errorMessage) {
+        this.method = method;
+        this.uri = uri;
+        int query = uri.indexOf('?');
+        this.path = query == -1 ? uri : uri.substring(0, query);
+        this.http11 = http11;
+        this.keepAlive = keepAlive;
+        this.head = head;
+        this.body = body;
+        this.errorStatus = errorStatus;
+        this.errorReason = errorReason;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * 解码失败时代替请求交给ServiceHandler的错误请求，不保持连接
+     */
+    static HttpRequest error(int status, String reason, String message) {
+        return new HttpRequest("", "", true, false, new byte[0], ByteBuffer.allocate(0), status, reason, message);
+    }
+
+    /**
+     * 按名称查找首部（不区分大小写），同名首部只返回第一个
+     * @return 去掉首尾空白的首部值，不存在时返回null
+     */
+    public String getHeader(String name) {
+        int length = head.length;
+        // 跳过请求行
+        int lineStart = nextLine(0);
+        while (lineStart < length) {
+            int lineEnd = lineEnd(lineStart);
+            int colon = -1;
+            for (int i = lineStart; i < lineEnd; i++) {
+                if (head[i] == ':') {
+                    colon = i;
+                    break;
+                }
+            }
+            if (colon - lineStart == name.length() && nameMatches(lineStart, name)) {
+                int valueStart = colon + 1;
+                int valueEnd = lineEnd;
+                while (valueStart < valueEnd && isWhitespace(head[valueStart])) {
+                    valueStart++;
+                }
+                while (valueEnd > valueStart && isWhitespace(head[valueEnd - 1])) {
+                    valueEnd--;
+                }
+                return new String(head, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1);
+            }
+            lineStart = nextLine(lineStart);
+        }
+        return null;
+    }
+
+    private boolean nameMatches(int offset, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (HttpRequestDecoder.toLowerCase(head[offset + i]) != Character.toLowerCase(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nextLine(int from) {
+        for (int i = from; i < head.length; i++) {
+            if (head[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return head.length;
+    }
+
+    private int lineEnd(int lineStart) {
+        int end = nextLine(lineStart);
+        if (end > lineStart && head[end - 1] == '\n') {
+            end--;
+        }
+        if (end > lineStart && head[end - 1] == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * 不包含查询字符串的路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isHttp11() {
+        return http11;
+    }
+
+    /**
+     * 响应之后是否保持连接
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * 是否是格式错误的请求，此时只有getErrorStatus、getErrorReason和getErrorMessage有意义
+     */
+    public boolean isError() {
+        return errorStatus != 0;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    public String getErrorReason() {
+        return errorReason;
+    }
+
+    /**
+     * 解码器给出的错误原因
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public ByteBuffer getBody() {
+        return body;
+    }
+
+    public String getBodyAsString() {
+        return StandardCharsets.UTF_8.decode(body.duplicate()).toString();
+    }
+
+    @Override
+    public String toString() {
+        if (isError()) {
+            return errorStatus + " " + errorReason + ": " + errorMessage;
+        }
+        return method + " " + uri + (http11 ? " HTTP/1.1" : " HTTP/1.0") + ", body=" + body.remaining() + " bytes";
+    }
+}
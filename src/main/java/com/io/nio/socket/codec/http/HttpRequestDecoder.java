@@ -0,0 +1,473 @@
+package com.io.nio.socket.codec.http;
+
+import com.io.nio.socket.codec.FrameDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: HttpRequestDecoder
+ * @description: HTTP/1.x请求解码器，支持Content-Length和chunked两种请求体、keep-alive以及管线化的多个请求。
+ *              请求行和首部直接在读到的buffer上按字节解析，常用首部按字节比较，不为它们创建String；
+ *              整个请求头只拷贝一次，交给HttpRequest按需查找其余首部。格式错误的请求解码为错误请求（见HttpRequest.isError），
+ *              由HttpRouter回复400、413或505后关闭连接
+ * @date 2026年10月18日 21:20
+ */
+public class HttpRequestDecoder implements FrameDecoder<HttpRequest> {
+
+    public static final int DEFAULT_MAX_HEAD_LENGTH = 8 * 1024;
+
+    public static final int DEFAULT_MAX_BODY_LENGTH = 1024 * 1024;
+
+    private static final byte[] CONTENT_LENGTH = ascii("content-length");
+    private static final byte[] TRANSFER_ENCODING = ascii("transfer-encoding");
+    private static final byte[] CONNECTION = ascii("connection");
+    private static final byte[] CHUNKED = ascii("chunked");
+    private static final byte[] CLOSE = ascii("close");
+    private static final byte[] KEEP_ALIVE = ascii("keep-alive");
+    private static final byte[] HTTP_1_1 = ascii("HTTP/1.1");
+    private static final byte[] HTTP_1_0 = ascii("HTTP/1.0");
+    // 常用的请求方法直接返回常量，不为每个请求创建String
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH", "TRACE", "CONNECT"};
+    private static final byte[][] METHOD_BYTES = new byte[METHODS.length][];
+    // chunk大小行的最大长度，包括chunk扩展
+    private static final int MAX_CHUNK_SIZE_LINE_LENGTH = 1024;
+    private static final ByteBuffer EMPTY_BODY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_BYTES[i] = ascii(METHODS[i]);
+        }
+    }
+
+    private enum State {
+        HEAD, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER
+    }
+
+    private final int maxHeadLength;
+    private final int maxBodyLength;
+    private State state = State.HEAD;
+    // 未完成的行（或请求头）中已经扫描过的字节数，下次从这里继续查找，避免重复扫描
+    private int scannedLength;
+    // 已经解析出一个不保持连接的请求或者格式错误的请求，之后的数据全部丢弃
+    private boolean closeRequested;
+
+    // 以下是正在解析的请求的状态
+    private String method;
+    private String uri;
+    private boolean http11;
+    private boolean keepAlive;
+    private byte[] head;
+    private int contentLength;
+    private boolean chunked;
+    // 当前chunk还没有读取的字节数
+    private int chunkRemaining;
+    // chunked请求体，处于写模式
+    private ByteBuffer chunkedBody;
+
+    public HttpRequestDecoder() {
+        this(DEFAULT_MAX_HEAD_LENGTH, DEFAULT_MAX_BODY_LENGTH);
+    }
+
+    public HttpRequestDecoder(int maxHeadLength, int maxBodyLength) {
+        this.maxHeadLength = maxHeadLength;
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    @Override
+    public void decode(ByteBuffer in, List<HttpRequest> frames) {
+        try {
+            decodeFrames(in, frames);
+        } catch (HttpDecodeException e) {
+            // 格式错误的请求不直接断开连接，而是转换为错误请求，由HttpRouter回复对应的状态码，响应写完后关闭连接
+            frames.add(HttpRequest.error(e.getStatus(), e.getReason(), e.getMessage()));
+            closeRequested = true;
+            method = null;
+            uri = null;
+            head = null;
+            chunkedBody = null;
+        }
+        if (closeRequested) {
+            // 连接将在响应写完后关闭，之后的管线化请求不再处理
+            in.position(in.limit());
+        }
+    }
+
+    @Override
+    public boolean isCloseRequested() {
+        return closeRequested;
+    }
+
+    private void decodeFrames(ByteBuffer in, List<HttpRequest> frames) throws HttpDecodeException {
+        while (in.hasRemaining() && !closeRequested) {
+            switch (state) {
+                case HEAD:
+                    if (!decodeHead(in, frames)) {
+                        return;
+                    }
+                    break;
+                case FIXED_BODY:
+                    if (in.remaining() < contentLength) {
+                        return;
+                    }
+                    complete(FrameDecoder.readFrame(in, contentLength), frames);
+                    break;
+                case CHUNK_SIZE: {
+                    int lineEnd = findLineEnd(in, MAX_CHUNK_SIZE_LINE_LENGTH);
+                    if (lineEnd == -1) {
+                        return;
+                    }
+                    chunkRemaining = parseChunkSize(in, in.position(), lineEnd);
+                    in.position(lineEnd + 1);
+                    if (chunkRemaining == 0) {
+                        state = State.TRAILER;
+                    } else {
+                        ensureChunkedBodyCapacity(chunkRemaining);
+                        state = State.CHUNK_DATA;
+                    }
+                    break;
+                }
+                case CHUNK_DATA: {
+                    // chunk数据可以分多次读取，读到多少就拷贝多少
+                    int length = Math.min(in.remaining(), chunkRemaining);
+                    int limit = in.limit();
+                    in.limit(in.position() + length);
+                    chunkedBody.put(in);
+                    in.limit(limit);
+                    chunkRemaining -= length;
+                    if (chunkRemaining == 0) {
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                }
+                case CHUNK_END:
+                case TRAILER: {
+                    int lineEnd = findLineEnd(in, maxHeadLength);
+                    if (lineEnd == -1) {
+                        return;
+                    }
+                    boolean emptyLine = lineEnd == in.position() || (lineEnd == in.position() + 1 && in.get(in.position()) == '\r');
+                    in.position(lineEnd + 1);
+                    if (state == State.CHUNK_END) {
+                        if (!emptyLine) {
+                            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "chunk数据之后缺少CRLF");
+                        }
+                        state = State.CHUNK_SIZE;
+                    } else if (emptyLine) {
+                        // 忽略trailer首部，空行表示请求结束
+                        chunkedBody.flip();
+                        complete(chunkedBody, frames);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(state.name());
+            }
+        }
+    }
+
+    /**
+     * 查找请求头的结束位置（连续两个换行，兼容只有\n的情况），找到后解析请求头
+     * @return 请求头是否已经完整
+     */
+    private boolean decodeHead(ByteBuffer in, List<HttpRequest> frames) throws HttpDecodeException {
+        if (scannedLength == 0) {
+            // 忽略请求之间多余的空行
+            while (in.hasRemaining() && (in.get(in.position()) == '\r' || in.get(in.position()) == '\n')) {
+                in.get();
+            }
+        }
+        int start = in.position();
+        int end = in.limit();
+        int headEnd = -1;
+        for (int i = start + scannedLength; i < end; i++) {
+            if (in.get(i) != '\n') {
+                continue;
+            }
+            // 向前看，不依赖上一次扫描的状态
+            int previous = i - 1;
+            if (previous >= start && in.get(previous) == '\r') {
+                previous--;
+            }
+            if (previous >= start && in.get(previous) == '\n') {
+                headEnd = i;
+                break;
+            }
+        }
+        if (headEnd == -1) {
+            scannedLength = end - start;
+            if (scannedLength > maxHeadLength) {
+                throw new HttpDecodeException(HttpDecodeException.PAYLOAD_TOO_LARGE, "请求头长度超过最大值 " + maxHeadLength);
+            }
+            return false;
+        }
+        scannedLength = 0;
+        if (headEnd - start + 1 > maxHeadLength) {
+            throw new HttpDecodeException(HttpDecodeException.PAYLOAD_TOO_LARGE, "请求头长度超过最大值 " + maxHeadLength);
+        }
+        parseHead(in, start, headEnd);
+        head = new byte[headEnd + 1 - start];
+        in.get(head);
+        if (chunked) {
+            chunkedBody = ByteBuffer.allocate(256);
+            state = State.CHUNK_SIZE;
+        } else if (contentLength > 0) {
+            state = State.FIXED_BODY;
+        } else {
+            complete(EMPTY_BODY, frames);
+        }
+        return true;
+    }
+
+    private void parseHead(ByteBuffer in, int start, int headEnd) throws HttpDecodeException {
+        int lineEnd = indexOf(in, start, headEnd, (byte) '\n');
+        parseRequestLine(in, start, trimCr(in, start, lineEnd));
+        contentLength = 0;
+        chunked = false;
+        boolean connectionClose = false;
+        boolean connectionKeepAlive = false;
+        // 已经出现过的Content-Length，-1表示还没有出现
+        int declaredContentLength = -1;
+        int lineStart = lineEnd + 1;
+        while (lineStart <= headEnd) {
+            lineEnd = indexOf(in, lineStart, headEnd, (byte) '\n');
+            int lineStop = trimCr(in, lineStart, lineEnd);
+            if (lineStop > lineStart) {
+                int colon = indexOf(in, lineStart, lineStop, (byte) ':');
+                if (colon == lineStop) {
+                    throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "首部格式错误");
+                }
+                int valueStart = colon + 1;
+                int valueEnd = lineStop;
+                while (valueStart < valueEnd && isWhitespace(in.get(valueStart))) {
+                    valueStart++;
+                }
+                while (valueEnd > valueStart && isWhitespace(in.get(valueEnd - 1))) {
+                    valueEnd--;
+                }
+                if (equalsIgnoreCase(in, lineStart, colon, CONTENT_LENGTH)) {
+                    contentLength = parseContentLength(in, valueStart, valueEnd);
+                    // 多个不一致的Content-Length会让前后两个节点对请求边界的理解不同（请求走私），直接拒绝
+                    if (declaredContentLength != -1 && declaredContentLength != contentLength) {
+                        throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "Content-Length重复且不一致");
+                    }
+                    declaredContentLength = contentLength;
+                } else if (equalsIgnoreCase(in, lineStart, colon, TRANSFER_ENCODING)) {
+                    // Transfer-Encoding的值是逗号分隔的列表，解码器只能还原chunked，其余编码（gzip、deflate等）一律拒绝；
+                    // chunked只能出现一次，多个Transfer-Encoding首部按一个列表处理
+                    int tokenStart = valueStart;
+                    while (tokenStart <= valueEnd) {
+                        int tokenEnd = indexOf(in, tokenStart, valueEnd, (byte) ',');
+                        int from = tokenStart;
+                        int to = tokenEnd;
+                        while (from < to && isWhitespace(in.get(from))) {
+                            from++;
+                        }
+                        while (to > from && isWhitespace(in.get(to - 1))) {
+                            to--;
+                        }
+                        if (chunked || !equalsIgnoreCase(in, from, to, CHUNKED)) {
+                            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "不支持的Transfer-Encoding");
+                        }
+                        chunked = true;
+                        tokenStart = tokenEnd + 1;
+                    }
+                } else if (equalsIgnoreCase(in, lineStart, colon, CONNECTION)) {
+                    // Connection的值是逗号分隔的列表
+                    int tokenStart = valueStart;
+                    while (tokenStart < valueEnd) {
+                        int tokenEnd = indexOf(in, tokenStart, valueEnd, (byte) ',');
+                        int from = tokenStart;
+                        int to = tokenEnd;
+                        while (from < to && isWhitespace(in.get(from))) {
+                            from++;
+                        }
+                        while (to > from && isWhitespace(in.get(to - 1))) {
+                            to--;
+                        }
+                        connectionClose |= equalsIgnoreCase(in, from, to, CLOSE);
+                        connectionKeepAlive |= equalsIgnoreCase(in, from, to, KEEP_ALIVE);
+                        tokenStart = tokenEnd + 1;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        // HTTP/1.1默认保持连接，HTTP/1.0需要显式声明keep-alive
+        keepAlive = !connectionClose && (http11 || connectionKeepAlive);
+        if (chunked && declaredContentLength != -1) {
+            // 同时出现时不同的实现可能按不同的首部确定请求边界（请求走私），拒绝请求并关闭连接
+            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "不能同时使用Content-Length和Transfer-Encoding");
+        }
+    }
+
+    private void parseRequestLine(ByteBuffer in, int start, int end) throws HttpDecodeException {
+        int methodEnd = indexOf(in, start, end, (byte) ' ');
+        int uriEnd = methodEnd == end ? end : indexOf(in, methodEnd + 1, end, (byte) ' ');
+        if (methodEnd == start || uriEnd == end || uriEnd == methodEnd + 1) {
+            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "请求行格式错误");
+        }
+        method = method(in, start, methodEnd);
+        uri = ascii(in, methodEnd + 1, uriEnd);
+        if (equals(in, uriEnd + 1, end, HTTP_1_1)) {
+            http11 = true;
+        } else if (equals(in, uriEnd + 1, end, HTTP_1_0)) {
+            http11 = false;
+        } else {
+            throw new HttpDecodeException(HttpDecodeException.HTTP_VERSION_NOT_SUPPORTED, "不支持的HTTP版本");
+        }
+    }
+
+    private int parseContentLength(ByteBuffer in, int from, int to) throws HttpDecodeException {
+        if (from == to) {
+            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "Content-Length格式错误");
+        }
+        long length = 0;
+        for (int i = from; i < to; i++) {
+            byte b = in.get(i);
+            if (b < '0' || b > '9') {
+                throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "Content-Length格式错误");
+            }
+            length = length * 10 + (b - '0');
+            if (length > maxBodyLength) {
+                throw new HttpDecodeException(HttpDecodeException.PAYLOAD_TOO_LARGE, "请求体长度超过最大值 " + maxBodyLength);
+            }
+        }
+        return (int) length;
+    }
+
+    private int parseChunkSize(ByteBuffer in, int from, int lineEnd) throws HttpDecodeException {
+        int to = trimCr(in, from, lineEnd);
+        long size = 0;
+        int i = from;
+        for (; i < to; i++) {
+            int digit = Character.digit(in.get(i), 16);
+            if (digit == -1) {
+                break;
+            }
+            size = (size << 4) + digit;
+            if (chunkedBody.position() + size > maxBodyLength) {
+                throw new HttpDecodeException(HttpDecodeException.PAYLOAD_TOO_LARGE, "请求体长度超过最大值 " + maxBodyLength);
+            }
+        }
+        // 大小之后只允许出现chunk扩展
+        if (i == from || (i < to && in.get(i) != ';' && !isWhitespace(in.get(i)))) {
+            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "chunk大小格式错误");
+        }
+        return (int) size;
+    }
+
+    private void ensureChunkedBodyCapacity(int length) {
+        if (chunkedBody.remaining() >= length) {
+            return;
+        }
+        int required = chunkedBody.position() + length;
+        ByteBuffer expanded = ByteBuffer.allocate(Math.max(Math.min(chunkedBody.capacity() * 2, maxBodyLength), required));
+        chunkedBody.flip();
+        expanded.put(chunkedBody);
+        chunkedBody = expanded;
+    }
+
+    private void complete(ByteBuffer body, List<HttpRequest> frames) {
+        frames.add(new HttpRequest(method, uri, http11, keepAlive, head, body));
+        if (!keepAlive) {
+            closeRequested = true;
+        }
+        state = State.HEAD;
+        method = null;
+        uri = null;
+        head = null;
+        chunkedBody = null;
+    }
+
+    /**
+     * 从position开始查找\n
+     * @return \n的下标，没有找到时返回-1
+     */
+    private int findLineEnd(ByteBuffer in, int maxLength) throws HttpDecodeException {
+        int start = in.position();
+        int end = in.limit();
+        for (int i = start + scannedLength; i < end; i++) {
+            if (in.get(i) == '\n') {
+                scannedLength = 0;
+                return i;
+            }
+        }
+        scannedLength = end - start;
+        if (scannedLength > maxLength) {
+            throw new HttpDecodeException(HttpDecodeException.BAD_REQUEST, "行长度超过最大值 " + maxLength);
+        }
+        return -1;
+    }
+
+    private static String method(ByteBuffer in, int from, int to) {
+        for (int i = 0; i < METHOD_BYTES.length; i++) {
+            if (equals(in, from, to, METHOD_BYTES[i])) {
+                return METHODS[i];
+            }
+        }
+        return ascii(in, from, to);
+    }
+
+    private static int indexOf(ByteBuffer in, int from, int to, byte target) {
+        for (int i = from; i < to; i++) {
+            if (in.get(i) == target) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int trimCr(ByteBuffer in, int from, int lineEnd) {
+        return lineEnd > from && in.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static boolean equals(ByteBuffer in, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (in.get(from + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按ASCII不区分大小写比较，expected必须是小写
+     */
+    private static boolean equalsIgnoreCase(ByteBuffer in, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (toLowerCase(in.get(from + i)) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static String ascii(ByteBuffer in, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = in.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.io.nio.socket.codec.http;
+
+import com.io.nio.socket.selector.FileRegion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: HttpResponse
+ * @description: HTTP/1.1响应，Content-Length和Connection首部在编码时根据响应体和请求自动生成。
+ *              响应体可以是字符串，也可以是一个文件区域，文件区域通过transferTo直接写入连接，不经过堆内存
+ * @date 2026年10月18日 21:40
+ */
+public class HttpResponse {
+
+    private final int status;
+    private final String reason;
+    private String contentType = "text/plain; charset=utf-8";
+    // 其余首部，按添加顺序输出
+    private final List<String[]> headers = new ArrayList<>();
+    private String body = "";
+    // 不为null时以文件区域作为响应体，忽略body
+    private FileRegion file;
+
+    public HttpResponse(int status, String reason) {
+        this.status = status;
+        this.reason = reason;
+    }
+
+    public static HttpResponse ok(String body) {
+        return new HttpResponse(200, "OK").body(body);
+    }
+
+    public static HttpResponse notFound() {
+        return new HttpResponse(404, "Not Found").body("Not Found");
+    }
+
+    public static HttpResponse internalServerError() {
+        return new HttpResponse(500, "Internal Server Error").body("Internal Server Error");
+    }
+
+    public HttpResponse body(String body) {
+        this.body = body == null ? "" : body;
+        return this;
+    }
+
+    /**
+     * 以文件区域作为响应体，响应写完或者被丢弃时关闭文件
+     */
+    public HttpResponse file(FileRegion file) {
+        this.file = file;
+        return this;
+    }
+
+    public HttpResponse contentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    public HttpResponse header(String name, String value) {
+        headers.add(new String[]{name, value});
+        return this;
+    }
+
+    /**
+     * 转换为交给连接写出的响应数据：字符串响应体编码为完整的报文，文件响应体为报文头和文件区域组成的List
+     * @param request 对应的请求，决定是否保持连接以及是否输出响应体
+     */
+    public Object toResponseData(HttpRequest request) {
+        if (file == null) {
+            return encode(request);
+        }
+        String head = head(request, file.getCount()).toString();
+        if ("HEAD".equals(request.getMethod())) {
+            file.close();
+            return head;
+        }
+        return Arrays.asList(head, file);
+    }
+
+    /**
+     * 编码为完整的响应报文，响应体为文件时只包含报文头
+     * @param request 对应的请求，决定是否保持连接以及是否输出响应体
+     */
+    public String encode(HttpRequest request) {
+        if (file != null) {
+            return head(request, file.getCount()).toString();
+        }
+        StringBuilder builder = head(request, utf8Length(body));
+        // HEAD请求只返回首部
+        if (!"HEAD".equals(request.getMethod())) {
+            builder.append(body);
+        }
+        return builder.toString();
+    }
+
+    private StringBuilder head(HttpRequest request, long contentLength) {
+        StringBuilder builder = new StringBuilder(128 + body.length());
+        builder.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        builder.append("Content-Type: ").append(contentType).append("\r\n");
+        builder.append("Content-Length: ").append(contentLength).append("\r\n");
+        builder.append("Connection: ").append(request.isKeepAlive() ? "keep-alive" : "close").append("\r\n");
+        for (String[] header : headers) {
+            builder.append(header[0]).append(": ").append(header[1]).append("\r\n");
+        }
+        builder.append("\r\n");
+        return builder;
+    }
+
+    /**
+     * 计算UTF-8编码后的字节数，不创建临时数组
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
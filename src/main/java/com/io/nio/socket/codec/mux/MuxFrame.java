@@ -0,0 +1,77 @@
+package com.io.nio.socket.codec.mux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author heshuai
+ * @title: MuxFrame
+ * @description: 多路复用二进制协议的一帧，帧格式（大端）：
+ *              <pre>
+ *              +----------------+----------------+--------+-----------------+
+ *              | length (4字节) | streamId (4字节) | type (1字节) | payload (length字节) |
+ *              +----------------+----------------+--------+-----------------+
+ *              </pre>
+ *              length只表示payload的长度。客户端为每个请求分配一个在该连接上未被占用的streamId，
+ *              服务端的响应帧带回同一个streamId，因此同一个连接上可以同时有多个请求，响应按处理完成的先后顺序返回
+ * @date 2026年10月19日 10:10
+ */
+public class MuxFrame {
+
+    // 帧头长度：length + streamId + type
+    public static final int HEADER_LENGTH = 9;
+
+    public static final byte TYPE_REQUEST = 0;
+
+    public static final byte TYPE_RESPONSE = 1;
+    // 请求处理失败或者被拒绝，payload是UTF-8编码的错误信息
+    public static final byte TYPE_ERROR = 2;
+
+    private final int streamId;
+
+    private final byte type;
+    // 处于读模式
+    private final ByteBuffer payload;
+
+    public MuxFrame(int streamId, byte type, ByteBuffer payload) {
+        this.streamId = streamId;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public static MuxFrame response(int streamId, ByteBuffer payload) {
+        return new MuxFrame(streamId, TYPE_RESPONSE, payload);
+    }
+
+    public static MuxFrame error(int streamId, String message) {
+        return new MuxFrame(streamId, TYPE_ERROR, ByteBuffer.wrap(String.valueOf(message).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 编码为包含帧头的完整帧，不修改payload的position
+     * @return 处于读模式的buffer
+     */
+    public ByteBuffer encode() {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + payload.remaining());
+        frame.putInt(payload.remaining()).putInt(streamId).put(type).put(payload.duplicate());
+        frame.flip();
+        return frame;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public ByteBuffer getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "MuxFrame{streamId=" + streamId + ", type=" + type + ", length=" + payload.remaining() + "}";
+    }
+}
@@ -0,0 +1,46 @@
+package com.io.nio.socket.codec.mux;
+
+import com.io.nio.socket.codec.FrameDecodeException;
+import com.io.nio.socket.codec.FrameDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: MuxFrameDecoder
+ * @description: 多路复用二进制协议的帧解码器，按MuxFrame的帧头切分出完整的帧，payload拷贝为独立的buffer
+ * @date 2026年10月19日 10:20
+ */
+public class MuxFrameDecoder implements FrameDecoder<MuxFrame> {
+
+    public static final int DEFAULT_MAX_PAYLOAD_LENGTH = 1024 * 1024;
+
+    private final int maxPayloadLength;
+
+    public MuxFrameDecoder() {
+        this(DEFAULT_MAX_PAYLOAD_LENGTH);
+    }
+
+    public MuxFrameDecoder(int maxPayloadLength) {
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    @Override
+    public void decode(ByteBuffer in, List<MuxFrame> frames) throws FrameDecodeException {
+        while (in.remaining() >= MuxFrame.HEADER_LENGTH) {
+            int start = in.position();
+            int length = in.getInt(start);
+            if (length < 0 || length > maxPayloadLength) {
+                throw new FrameDecodeException("payload长度不合法: " + length);
+            }
+            if (in.remaining() < MuxFrame.HEADER_LENGTH + length) {
+                return;
+            }
+            int streamId = in.getInt(start + 4);
+            byte type = in.get(start + 8);
+            in.position(start + MuxFrame.HEADER_LENGTH);
+            frames.add(new MuxFrame(streamId, type, FrameDecoder.readFrame(in, length)));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.io.nio.socket.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author heshuai
+ * @title: Histogram
+ * @description: 无锁的对数-线性直方图，可以被多个线程同时写入。
+ *              小于16的值各占一个桶，其余的值按2的幂分段，每段再均分为8个桶，相对误差不超过12.5%，
+ *              覆盖整个long的范围只需要不到500个桶。
+ *              记录一次要分别原子更新桶计数、总数和总和，并用CAS循环更新最大值，这几步之间不是原子的，
+ *              并发写入时读到的百分位、总数和平均值可能来自不同时刻，只适合做统计，不能作为精确的快照
+ * @date 2026年10月18日 22:50
+ */
+public class Histogram {
+
+    // 每个2的幂分段再细分的桶数，取2的幂
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 小于该值的数各占一个桶
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    private static final int LINEAR_SHIFT = Integer.numberOfTrailingZeros(LINEAR_LIMIT);
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - LINEAR_SHIFT + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个非负的值，负数按0记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 其他线程刚刚更新了最大值，重新比较
+        }
+    }
+
+    /**
+     * 按百分位查找，返回该百分位所在桶的上界，因此结果不会低估真实值
+     * @param percentile 0到100之间的百分位
+     */
+    public long getValueAtPercentile(double percentile) {
+        long totalCount = count.get();
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(totalCount * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : total.get() / n;
+    }
+
+    /**
+     * 清空所有记录，和并发的record之间不保证原子性，只用于开始新一轮观测
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_SHIFT) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + LINEAR_SHIFT;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        // 最高的桶上界会溢出
+        return lowerBound + width - 1 < lowerBound ? Long.MAX_VALUE : lowerBound + width - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50)
+                + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax() + "}";
+    }
+}
@@ -0,0 +1,50 @@
+package com.io.nio.socket.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author heshuai
+ * @title: LatencyCounter
+ * @description: 无锁的延迟计数器，记录次数、总耗时和最大耗时，可以被多个线程同时写入
+ * @date 2026年10月18日 20:00
+ */
+public class LatencyCounter {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // 其他线程刚刚更新了最大值，重新比较
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyCounter{count=" + getCount() + ", meanNanos=" + getMeanNanos() + ", maxNanos=" + getMaxNanos() + "}";
+    }
+}
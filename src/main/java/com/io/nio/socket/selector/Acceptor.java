@@ -0,0 +1,133 @@
+package com.io.nio.socket.selector;
+
+import java.io.IOException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * @author heshuai
+ * @title: Acceptor
+ * @description: 接受新连接的循环，阻塞在select()上，空闲时不占用cpu；
+ *              accept事件到达后一次最多接受acceptBatchSize个连接，把积压的accept队列尽快取空。
+ *              多个Acceptor可以共享同一个监听通道，也可以在支持SO_REUSEPORT的平台上各自监听同一个端口
+ * @date 2026年10月18日 17:00
+ */
+public class Acceptor implements Runnable {
+
+    private final Selector selector;
+    // 替换后的数组实现的selectedKeys，为null时使用selector.selectedKeys()
+    private final SelectedKeySet selectedKeys;
+    // 一次accept事件最多接受的连接数
+    private final int acceptBatchSize;
+    // 新连接的去处
+    private final Consumer<SocketChannel> connectionHandler;
+    // 设置后退出accept循环并关闭selector，监听通道由创建者关闭
+    private volatile boolean closed;
+
+    public Acceptor(ServerSocketChannel serverChannel, int acceptBatchSize, Consumer<SocketChannel> connectionHandler,
+                    boolean optimizeSelectedKeys) throws IOException {
+        this.selector = Selector.open();
+        this.selectedKeys = optimizeSelectedKeys ? SelectedKeySet.install(selector) : null;
+        this.acceptBatchSize = acceptBatchSize;
+        this.connectionHandler = connectionHandler;
+        // 同一个通道可以注册到多个selector上，多个Acceptor共享监听通道时各自注册一次
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            try {
+                // 阻塞直到有连接到达，不再像selectNow()那样空转
+                if (selector.select() == 0) {
+                    continue;
+                }
+                if (selectedKeys != null) {
+                    for (int i = 0; i < selectedKeys.size(); i++) {
+                        accept(selectedKeys.get(i));
+                    }
+                    selectedKeys.reset();
+                    continue;
+                }
+                // 返回已经准备好并且感兴趣的selectedKeys集合
+                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+                while (keyIterator.hasNext()) {
+                    SelectionKey key = keyIterator.next();
+                    // 将当前的selectorKey从selectedKeys移除，就不会重复触发accept事件了；
+                    // 除非再次有请求到达触发该强求
+                    keyIterator.remove();
+                    accept(key);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 停止accept循环，可以在任意线程调用
+     */
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void accept(SelectionKey key) {
+        if (key.isValid() && key.isAcceptable()) {
+            acceptBatch((ServerSocketChannel) key.channel());
+        }
+    }
+
+    private void acceptBatch(ServerSocketChannel serverChannel) {
+        for (int i = 0; i < acceptBatchSize; i++) {
+            SocketChannel socketChannel = null;
+            try {
+                // 接受客户端请求，返回null说明accept队列已经取空（或者被其他Acceptor取走）
+                socketChannel = serverChannel.accept();
+                if (socketChannel == null) {
+                    return;
+                }
+                socketChannel.configureBlocking(false);
+                connectionHandler.accept(socketChannel);
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeQuietly(socketChannel);
+            }
+        }
+    }
+
+    private void closeQuietly(SocketChannel socketChannel) {
+        if (socketChannel == null) {
+            return;
+        }
+        try {
+            socketChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 当前JDK和平台是否支持SO_REUSEPORT；JDK9之前没有这个选项，通过反射获取
+     */
+    @SuppressWarnings("unchecked")
+    public static SocketOption<Boolean> reusePortOption(ServerSocketChannel serverChannel) {
+        try {
+            SocketOption<Boolean> option = (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+            return serverChannel.supportedOptions().contains(option) ? option : null;
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
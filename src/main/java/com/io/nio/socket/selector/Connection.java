@@ -0,0 +1,288 @@
+package com.io.nio.socket.selector;
+
+import com.io.log.AsyncLogger;
+import com.io.nio.socket.codec.CumulativeDecoder;
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.service.ServiceConnection;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: Connection
+ * @description: 一个客户端长连接的上下文，连接在多次请求/响应之间保持打开，
+ *              只有在EOF、发生异常或者空闲、读、写超时时才会被显式关闭。
+ *              连接由唯一的EventLoop负责读写，除了write和close之外的方法只能在该EventLoop线程中调用
+ * @date 2026年10月18日 10:05
+ */
+public class Connection implements ServiceConnection {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(Connection.class);
+
+    private final SocketChannel channel;
+    // 注册时缓存的客户端地址，打印日志时不需要再通过channel获取
+    private final SocketAddress remoteAddress;
+    // 该连接所属的事件循环
+    private final EventLoop eventLoop;
+    // 该连接独占的帧解码器，连同上次读取后还没有组成完整帧的字节
+    private final CumulativeDecoder<Object> decoder;
+    // 该连接在所属EventLoop的selector上的key
+    private SelectionKey key;
+    // 已经编码、等待写入内核的数据
+    private final OutboundQueue outboundQueue = new OutboundQueue();
+    // 正在处理中还没有响应的请求数，处理中的连接不参与空闲超时检查
+    private int inFlightRequests;
+    // 同时处理的最大请求数，达到后暂停读取；按请求顺序响应的协议为1，即处理期间不再读取
+    private final int maxInFlightRequests;
+    // 客户端已经关闭了输出流，响应写完之后关闭连接
+    private boolean closeAfterWrite;
+    // 最后一次读写的时间
+    private long lastActiveTime = System.currentTimeMillis();
+    // 已经读到一个请求的部分数据，正在等待剩余的数据
+    private boolean partialFrame;
+    // 该连接在所属EventLoop时间轮中的超时定时器，同一时刻最多一个
+    private HashedTimingWheel.Timeout timeout;
+    // 已经加入所属EventLoop本轮待写出的连接列表，避免重复加入
+    private boolean flushPending;
+    // 按最近的读取量决定下一次read事件使用的缓存区大小
+    private final ReceiveBufferSizer receiveBufferSizer;
+
+    public Connection(SocketChannel channel, EventLoop eventLoop, FrameDecoder<Object> frameDecoder, int maxInFlightRequests,
+                      ReceiveBufferSizer receiveBufferSizer) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.decoder = new CumulativeDecoder<>(frameDecoder);
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.receiveBufferSizer = receiveBufferSizer;
+        this.remoteAddress = remoteAddress(channel);
+    }
+
+    private static SocketAddress remoteAddress(SocketChannel channel) {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 将本次读到的数据交给帧解码器，见CumulativeDecoder
+     * @param in 处于读模式的本次读取的数据，调用结束后会被全部消费
+     * @param frames 解析出的完整帧
+     */
+    public void decode(ByteBuffer in, List<Object> frames) throws IOException {
+        decoder.decode(in, frames);
+    }
+
+    /**
+     * 写出一个响应，可以在任意线程调用。
+     * 非EventLoop线程调用时，通过任务队列交给所属EventLoop执行，不会跨线程操作selector
+     */
+    public void write(String responseData) {
+        write(responseData, null);
+    }
+
+    /**
+     * 写出一个响应，可以在任意线程调用
+     * @param responseData String、ByteBuffer、FileRegion，或者按顺序写出的由它们组成的List
+     * @param onQueued 响应进入出站队列之后在EventLoop线程中执行的回调，可以为null
+     */
+    @Override
+    public void write(Object responseData, Runnable onQueued) {
+        if (eventLoop.inEventLoop()) {
+            eventLoop.writeResponse(this, responseData, onQueued);
+        } else {
+            eventLoop.execute(() -> eventLoop.writeResponse(this, responseData, onQueued));
+        }
+    }
+
+    /**
+     * 请求读取完毕，处理中的请求达到上限或者响应写完之后需要关闭连接时暂停关注read事件，
+     * 直到有请求的响应写完
+     * @param requestCount 本次解析出的请求数
+     */
+    void addInFlightRequests(int requestCount) {
+        this.inFlightRequests += requestCount;
+        if (inFlightRequests >= maxInFlightRequests || closeAfterWrite) {
+            suspendRead();
+        }
+        touch();
+    }
+
+    void suspendRead() {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    /**
+     * 一个请求的响应已经加入出站队列
+     */
+    void completeRequest() {
+        inFlightRequests--;
+    }
+
+    /**
+     * 响应写完，重新关注read事件，等待同一个连接上的下一个请求
+     */
+    void resumeRead() {
+        touch();
+        if (key.isValid() && (key.interestOps() & SelectionKey.OP_READ) == 0) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * 在不超过同时处理上限的前提下还可以开始处理的请求数
+     */
+    int availableStreams() {
+        return Math.max(maxInFlightRequests - inFlightRequests, 0);
+    }
+
+    /**
+     * 处理中的请求低于上限，可以继续读取新的请求
+     */
+    boolean canResumeRead() {
+        return inFlightRequests < maxInFlightRequests;
+    }
+
+    /**
+     * 出站队列还有数据时关注write事件，写完之后取消
+     */
+    void setWriteInterest(boolean interested) {
+        if (!key.isValid()) {
+            return;
+        }
+        int ops = key.interestOps();
+        key.interestOps(interested ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * 是否正在等待write事件，此时内核发送缓存已满，新的响应随下一次write事件一起写出
+     */
+    boolean isWaitingForWritable() {
+        return key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) != 0;
+    }
+
+    boolean hasInFlightRequests() {
+        return inFlightRequests > 0;
+    }
+
+    boolean hasPendingWrite() {
+        return !outboundQueue.isEmpty();
+    }
+
+    boolean hasCumulation() {
+        return decoder.hasCumulation();
+    }
+
+    void touch() {
+        this.lastActiveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 关闭连接，可以在任意线程调用，实际的关闭在所属EventLoop中执行
+     */
+    @Override
+    public void close() {
+        if (!eventLoop.inEventLoop()) {
+            eventLoop.execute(this::close);
+            return;
+        }
+        if (!channel.isOpen()) {
+            return;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+        eventLoop.connectionClosed();
+        outboundQueue.release(eventLoop.getBufferPool());
+        try {
+            LOGGER.info("closed....... {}", remoteAddress);
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public EventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    boolean hasPartialFrame() {
+        return partialFrame;
+    }
+
+    void setPartialFrame(boolean partialFrame) {
+        this.partialFrame = partialFrame;
+    }
+
+    HashedTimingWheel.Timeout getTimeout() {
+        return timeout;
+    }
+
+    void setTimeout(HashedTimingWheel.Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    boolean isCloseRequested() {
+        return decoder.isCloseRequested();
+    }
+
+    ReceiveBufferSizer getReceiveBufferSizer() {
+        return receiveBufferSizer;
+    }
+
+    boolean isFlushPending() {
+        return flushPending;
+    }
+
+    void setFlushPending(boolean flushPending) {
+        this.flushPending = flushPending;
+    }
+
+    boolean isCloseAfterWrite() {
+        return closeAfterWrite;
+    }
+
+    void setCloseAfterWrite(boolean closeAfterWrite) {
+        this.closeAfterWrite = closeAfterWrite;
+    }
+}
@@ -0,0 +1,565 @@
+package com.io.nio.socket.selector;
+
+import com.io.log.AsyncLogger;
+import com.io.nio.socket.buffer.ByteBufferPool;
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.service.FrameDispatcher;
+import com.io.nio.socket.service.ServiceConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author heshuai
+ * @title: EventLoop
+ * @description: 事件循环，每个连接只属于一个EventLoop，由它在同一个线程中完成读和写。
+ *              其他线程（accept线程、业务线程）通过无锁的任务队列把工作交给它，每轮循环都会执行完队列中的任务，
+ *              所以selector上的注册和interest变更只会发生在EventLoop自己的线程中
+ * @date 2026年10月18日 16:10
+ */
+public class EventLoop implements Runnable {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(EventLoop.class);
+
+    private final Selector selector;
+    // 替换后的数组实现的selectedKeys，为null表示当前JDK不允许替换或者没有开启，使用selector.selectedKeys()
+    private final SelectedKeySet selectedKeys;
+    // 连接空闲超时时间，单位毫秒
+    private final long idleTimeoutMillis;
+    // 请求读到一部分之后等待剩余数据的超时时间，单位毫秒
+    private final long readTimeoutMillis;
+    // 响应无法写出（客户端不读取）的超时时间，单位毫秒
+    private final long writeTimeoutMillis;
+    // 按执行策略把请求交给所有连接共用的业务处理器，超过并发上限的请求直接回复拒绝响应
+    private final FrameDispatcher frameDispatcher;
+    // 其他线程提交给本EventLoop的任务
+    private final MpscQueue<Runnable> taskQueue = new MpscQueue<>();
+    // 是否已经唤醒过selector，避免每提交一个任务都调用一次wakeup
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+    // 本线程独占的直接内存池
+    private final ByteBufferPool bufferPool = new ByteBufferPool();
+    // 本线程的出站统计
+    private final OutboundMetrics outboundMetrics = new OutboundMetrics();
+    // 本线程的入站统计
+    private final InboundMetrics inboundMetrics = new InboundMetrics();
+    // 所有连接共用的接收缓存区可选大小
+    private final int[] receiveBufferSizes;
+    // 新连接的接收缓存区大小在receiveBufferSizes中的下标
+    private final int initialReceiveBufferIndex;
+    // 本线程复用的编码器，直接把响应编码到池化的buffer中，避免String.getBytes产生的临时数组
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // 已分配给本EventLoop的连接数（包括还在任务队列中等待注册的），供放置策略参考
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // 最近每轮循环处理耗时（不含select等待）的指数移动平均值，单位纳秒，只由本线程写入
+    private volatile long loopLatencyNanos;
+    // 运行本EventLoop的线程
+    private volatile Thread thread;
+    // 驱动本线程所有连接超时的时间轮，每个连接最多一个定时器
+    private final HashedTimingWheel timingWheel = new HashedTimingWheel(System.currentTimeMillis());
+    // 本线程因为超时关闭的连接数
+    private final TimeoutMetrics timeoutMetrics = new TimeoutMetrics();
+    // 每轮循环的耗时分布，通过JMX暴露
+    private final EventLoopMetrics metrics;
+    // 出站队列达到该字节数时立即写出
+    private final int flushThresholdBytes;
+    // 本轮循环中有新响应入队、等待在本轮结束时合并写出的连接，只由本线程访问
+    private final List<Connection> pendingFlushes = new ArrayList<>();
+    // 每个连接同时处理的最大请求数，按请求顺序响应的协议为1
+    private final int maxInFlightRequests;
+    // 响应是否按处理完成的顺序写出
+    private final boolean multiplexed;
+    // 设置后本轮循环结束时退出，关闭所有连接和selector
+    private volatile boolean shutdown;
+
+    public EventLoop(Selector selector, SelectorManagerBuilder builder) {
+        this.selector = selector;
+        this.selectedKeys = builder.isOptimizeSelectedKeys() ? SelectedKeySet.install(selector) : null;
+        this.idleTimeoutMillis = builder.getIdleTimeoutMillis();
+        this.readTimeoutMillis = builder.getReadTimeoutMillis();
+        this.writeTimeoutMillis = builder.getWriteTimeoutMillis();
+        this.frameDispatcher = new FrameDispatcher(builder.getServiceHandler(), builder.getExecutionStrategy(),
+                builder.getRejectResponse(), !builder.isMultiplexed());
+        this.metrics = new EventLoopMetrics(this, builder.getStallThresholdMillis());
+        this.flushThresholdBytes = builder.getFlushThresholdBytes();
+        this.multiplexed = builder.isMultiplexed();
+        this.receiveBufferSizes = ReceiveBufferSizer.sizeTable(builder.getMinReceiveBufferSize(), builder.getMaxReceiveBufferSize());
+        this.initialReceiveBufferIndex = ReceiveBufferSizer.indexOf(receiveBufferSizes, builder.getInitialReceiveBufferSize());
+        this.maxInFlightRequests = multiplexed ? builder.getMaxConcurrentStreams() : 1;
+    }
+
+    @Override
+    public void run() {
+        this.thread = Thread.currentThread();
+        while (!shutdown) {
+            try {
+                // 有待执行的任务时不阻塞，直接检查一次就绪的key；有定时器时最多阻塞到下一个tick
+                long timerDelay = timingWheel.millisUntilNextTick(System.currentTimeMillis());
+                long selectTimeout = timerDelay == -1 ? 1000 : Math.min(timerDelay, 1000);
+                long selectStart = System.nanoTime();
+                int readyCount = taskQueue.isEmpty() ? selector.select(selectTimeout) : selector.selectNow();
+                // 先复位再执行任务，复位之后提交的任务一定会再次唤醒selector
+                wakenUp.set(false);
+                long processStart = System.nanoTime();
+                int keys = readyCount > 0 ? processSelectedKeys() : 0;
+                long taskStart = System.nanoTime();
+                runAllTasks();
+                long taskEnd = System.nanoTime();
+                // 本轮产生的响应每个连接只写一次
+                flushPendingConnections();
+                long flushEnd = System.nanoTime();
+                timingWheel.advance(System.currentTimeMillis());
+                long processEnd = System.nanoTime();
+                long processingNanos = processEnd - processStart;
+                // 权重1/8的移动平均，平滑单轮的抖动
+                long latency = loopLatencyNanos;
+                loopLatencyNanos = latency + ((processingNanos - latency) >> 3);
+                if (metrics.recordIteration(processStart - selectStart, processingNanos, keys, taskEnd - taskStart)) {
+                    // 单轮处理时间超过阈值，这期间本线程上的所有连接都得不到响应
+                    LOGGER.warn("EventLoop[" + thread.getName() + "] 单轮处理耗时 " + processingNanos / 1000 + "us，超过阈值 "
+                            + metrics.getStallThresholdMillis() + "ms：key " + keys + " 个，处理key "
+                            + (taskStart - processStart) / 1000 + "us，执行任务 " + (taskEnd - taskStart) / 1000 + "us，写出 "
+                            + (flushEnd - taskEnd) / 1000 + "us，定时器 " + (processEnd - flushEnd) / 1000 + "us");
+                }
+            } catch (IOException | RuntimeException e) {
+                // 任何异常都不能终止事件循环，否则该循环上的所有连接都会失去响应
+                e.printStackTrace();
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * 停止事件循环，可以在任意线程调用；本轮循环结束后关闭所有连接，之后提交的任务不再执行
+     */
+    public void shutdown() {
+        shutdown = true;
+        selector.wakeup();
+    }
+
+    /**
+     * 退出循环前执行剩余的任务（包括还没有注册的新连接），再关闭所有连接和selector
+     */
+    private void closeAll() {
+        runAllTasks();
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 提交一个任务到本EventLoop中执行，可以在任意线程调用
+     */
+    public void execute(Runnable task) {
+        taskQueue.offer(task);
+        if (!inEventLoop() && wakenUp.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 把一个新接受的连接交给本EventLoop，注册在EventLoop线程中完成
+     */
+    public void register(SocketChannel channel, FrameDecoder<Object> frameDecoder) {
+        // 在accept线程中就计数，放置策略能立即看到还没有注册完成的连接
+        connectionCount.incrementAndGet();
+        execute(() -> {
+            Connection connection = new Connection(channel, this, frameDecoder, maxInFlightRequests,
+                    new ReceiveBufferSizer(receiveBufferSizes, initialReceiveBufferIndex));
+            try {
+                connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                scheduleTimeout(connection, idleTimeoutMillis);
+            } catch (ClosedChannelException e) {
+                e.printStackTrace();
+                connectionCount.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 连接关闭，只由本线程调用
+     */
+    void connectionClosed() {
+        connectionCount.decrementAndGet();
+    }
+
+    private void runAllTasks() {
+        Runnable task;
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return 本次处理的key数量
+     */
+    private int processSelectedKeys() {
+        if (selectedKeys != null) {
+            return processSelectedKeysOptimized();
+        }
+        // 返回已经准备好并且感兴趣的selectedKeys集合
+        Set<SelectionKey> selectionKeys = selector.selectedKeys();
+        Iterator<SelectionKey> keyIterator = selectionKeys.iterator();
+        int handled = 0;
+        while (keyIterator.hasNext()) {
+            SelectionKey key = keyIterator.next();
+            keyIterator.remove();
+            handled++;
+            processSelectedKey(key);
+        }
+        return handled;
+    }
+
+    /**
+     * 按下标遍历数组实现的selectedKeys，不创建Iterator，处理完后整体清空
+     */
+    private int processSelectedKeysOptimized() {
+        int size = selectedKeys.size();
+        try {
+            for (int i = 0; i < size; i++) {
+                SelectionKey key = selectedKeys.get(i);
+                // 数组中可能残留本轮之前已经取消的key
+                if (key.isValid()) {
+                    processSelectedKey(key);
+                }
+            }
+        } finally {
+            // 处理中抛出异常时也要清空，否则下一轮会重复处理本轮的key，并且一直持有它们的引用
+            selectedKeys.reset();
+        }
+        return size;
+    }
+
+    private void processSelectedKey(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            int readyOps = key.readyOps();
+            // 先写后读，尽快腾出出站队列中的buffer
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                flush(connection);
+            }
+            if (key.isValid() && (readyOps & SelectionKey.OP_READ) != 0) {
+                read(connection);
+            }
+        } catch (CancelledKeyException e) {
+            connection.close();
+        }
+    }
+
+    private void read(Connection connection) {
+        SocketChannel clientChannel = connection.getChannel();
+        // 按该连接最近的读取量从池中借出缓存区，读取结束后归还
+        ReceiveBufferSizer sizer = connection.getReceiveBufferSizer();
+        int bufferSize = sizer.nextSize();
+        ByteBuffer buffer = bufferPool.acquire(bufferSize);
+        try {
+            List<Object> frames = new ArrayList<>();
+            int count;
+            int calls = 1;
+            int totalRead = 0;
+            // 将本次可读的数据全部读出，交给该连接的帧解码器增量解析；不完整的帧留在连接中，等待下一次read事件
+            while ((count = clientChannel.read(buffer)) > 0) {
+                calls++;
+                totalRead += count;
+                buffer.flip();
+                connection.decode(buffer, frames);
+                buffer.clear();
+                buffer.limit(bufferSize);
+            }
+            boolean received = totalRead > 0;
+            inboundMetrics.recordReadEvent(bufferSize, calls, totalRead, sizer.record(totalRead));
+            if (frames.isEmpty()) {
+                if (count == -1 && connection.hasInFlightRequests()) {
+                    // 多路复用时客户端发完请求后关闭了输出流，等已接收请求的响应写完再关闭连接
+                    connection.setCloseAfterWrite(true);
+                    connection.suspendRead();
+                } else if (count == -1) {
+                    // 客户端关闭了连接（EOF），不再保持
+                    connection.close();
+                } else {
+                    connection.touch();
+                    if (received) {
+                        // 只读到请求的一部分，剩余的数据需要在读超时之内到达
+                        connection.setPartialFrame(true);
+                        scheduleTimeout(connection, readTimeoutMillis);
+                    }
+                }
+                return;
+            }
+            connection.setPartialFrame(connection.hasCumulation());
+            // 读到数据的同时客户端也关闭了输出流，或者协议要求关闭连接，响应写完之后再关闭连接
+            connection.setCloseAfterWrite(count == -1 || connection.isCloseRequested());
+            // 多路复用时一次读取可能解析出超过同时处理上限的请求，只处理上限以内的，超出的请求按stream回复拒绝响应；
+            // 按顺序响应的协议一次读到的多个请求在同一个任务中依次处理，不受该上限限制
+            int accepted = multiplexed ? Math.min(frames.size(), connection.availableStreams()) : frames.size();
+            // 请求处理期间不再关注read事件（多路复用时直到达到同时处理的上限），连接保持打开，响应写完之后重新关注
+            connection.addInFlightRequests(frames.size());
+            if (accepted < frames.size()) {
+                frameDispatcher.reject(connection, frames.subList(accepted, frames.size()));
+                frames = frames.subList(0, accepted);
+            }
+            if (!frames.isEmpty()) {
+                frameDispatcher.dispatch(connection, frames);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            connection.close();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * 在EventLoop线程中把一个响应加入连接的出站队列。
+     * 出站队列没有达到阈值时不立即写出，而是在本轮循环结束时和同一连接上的其他响应合并为一次聚集写
+     */
+    void writeResponse(Connection connection, Object responseData, Runnable onQueued) {
+        if (!connection.getKey().isValid()) {
+            // 连接已经关闭，丢弃响应
+            ServiceConnection.discard(responseData);
+            return;
+        }
+        if (!ServiceConnection.isSupported(responseData)) {
+            LOGGER.warn("不支持的响应类型：{}，关闭连接", responseData.getClass().getName());
+            ServiceConnection.discard(responseData);
+            connection.close();
+            return;
+        }
+        enqueue(connection.getOutboundQueue(), responseData);
+        outboundMetrics.incrementResponses();
+        connection.completeRequest();
+        if (onQueued != null) {
+            onQueued.run();
+        }
+        if (connection.isWaitingForWritable()) {
+            // 内核发送缓存已满，新的响应随下一次write事件一起写出
+            return;
+        }
+        if (connection.getOutboundQueue().getPendingBytes() >= flushThresholdBytes) {
+            if (flushThresholdBytes > 0) {
+                outboundMetrics.incrementEarlyFlushes();
+            }
+            flush(connection);
+        } else if (!connection.isFlushPending()) {
+            connection.setFlushPending(true);
+            pendingFlushes.add(connection);
+        }
+    }
+
+    /**
+     * 写出本轮循环中有新响应入队的连接
+     */
+    private void flushPendingConnections() {
+        if (pendingFlushes.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < pendingFlushes.size(); i++) {
+            Connection connection = pendingFlushes.get(i);
+            connection.setFlushPending(false);
+            // 期间可能已经关闭，或者提前写出后转为等待write事件
+            if (connection.getChannel().isOpen() && !connection.isWaitingForWritable()) {
+                flush(connection);
+            }
+        }
+        pendingFlushes.clear();
+    }
+
+    private void flush(Connection connection) {
+        try {
+            connection.touch();
+            if (!connection.getOutboundQueue().flush(connection.getChannel(), bufferPool, outboundMetrics)) {
+                // 内核发送缓存已满，保持关注write事件，等待可写后继续写出剩余数据，剩余数据需要在写超时之内写出
+                connection.setWriteInterest(true);
+                scheduleTimeout(connection, writeTimeoutMillis);
+                return;
+            }
+            connection.setWriteInterest(false);
+            if (connection.isCloseAfterWrite()) {
+                if (!connection.hasInFlightRequests()) {
+                    connection.close();
+                }
+                return;
+            }
+            // 响应写完后不关闭连接，处理中的请求低于上限时重新关注read事件，等待下一个请求
+            if (connection.canResumeRead()) {
+                connection.resumeRead();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            connection.close();
+        }
+    }
+
+    private void enqueue(OutboundQueue outboundQueue, Object responseData) {
+        if (responseData instanceof FileRegion) {
+            outboundQueue.add((FileRegion) responseData);
+        } else if (responseData instanceof ByteBuffer) {
+            if (((ByteBuffer) responseData).hasRemaining()) {
+                outboundQueue.add(copy((ByteBuffer) responseData));
+            }
+        } else if (responseData instanceof List) {
+            for (Object part : (List<?>) responseData) {
+                enqueue(outboundQueue, part);
+            }
+        } else if (!isStringEmpty((String) responseData)) {
+            outboundQueue.add(encode((String) responseData));
+        }
+    }
+
+    /**
+     * 将响应编码到从池中借出的buffer中，调用方负责归还。
+     * 按平均每个字符的字节数申请，ASCII为主的响应不会多占一倍以上的空间；放不下时换一个足够大的buffer继续编码
+     */
+    private ByteBuffer encode(String responseData) {
+        CharBuffer chars = CharBuffer.wrap(responseData);
+        ByteBuffer buffer = bufferPool.acquire((int) Math.ceil(responseData.length() * (double) encoder.averageBytesPerChar()));
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (!result.isOverflow()) {
+                break;
+            }
+            // 按剩余字符的最大字节数扩容，一次就能放下
+            ByteBuffer expanded = bufferPool.acquire(buffer.position()
+                    + (int) Math.ceil(Math.max(chars.remaining(), 1) * (double) encoder.maxBytesPerChar()));
+            buffer.flip();
+            expanded.put(buffer);
+            bufferPool.release(buffer);
+            buffer = expanded;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 将二进制响应拷贝到从池中借出的buffer中，不修改原buffer的position，调用方负责归还
+     */
+    private ByteBuffer copy(ByteBuffer responseData) {
+        ByteBuffer buffer = bufferPool.acquire(responseData.remaining());
+        buffer.put(responseData.duplicate());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 保证连接在delayMillis之内有一个超时定时器。
+     * 已有更早到期的定时器时不做任何事，读写时只更新最后活跃时间，不重新调度，到期时再按连接当时的状态判断是否真正超时
+     */
+    private void scheduleTimeout(Connection connection, long delayMillis) {
+        long now = System.currentTimeMillis();
+        HashedTimingWheel.Timeout timeout = connection.getTimeout();
+        if (timeout != null) {
+            if (timeout.getDeadline() <= now + delayMillis) {
+                return;
+            }
+            timeout.cancel();
+        }
+        connection.setTimeout(timingWheel.schedule(() -> checkTimeout(connection), delayMillis, now));
+    }
+
+    /**
+     * 定时器到期，按连接当前的状态选择超时时间：有响应没有写出时为写超时，请求只读到一部分时为读超时，否则为空闲超时
+     */
+    private void checkTimeout(Connection connection) {
+        connection.setTimeout(null);
+        if (!connection.getChannel().isOpen()) {
+            return;
+        }
+        long timeoutMillis;
+        if (connection.hasPendingWrite()) {
+            timeoutMillis = writeTimeoutMillis;
+        } else if (connection.hasInFlightRequests()) {
+            // 请求还在业务处理器中，不计入超时，稍后再检查
+            scheduleTimeout(connection, idleTimeoutMillis);
+            return;
+        } else if (connection.hasPartialFrame()) {
+            timeoutMillis = readTimeoutMillis;
+        } else {
+            timeoutMillis = idleTimeoutMillis;
+        }
+        long remaining = connection.getLastActiveTime() + timeoutMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            scheduleTimeout(connection, remaining);
+            return;
+        }
+        if (connection.hasPendingWrite()) {
+            timeoutMetrics.incrementWriteTimeouts();
+        } else if (connection.hasPartialFrame()) {
+            timeoutMetrics.incrementReadTimeouts();
+        } else {
+            timeoutMetrics.incrementIdleTimeouts();
+        }
+        connection.close();
+    }
+
+    private Boolean isStringEmpty(String data) {
+        return null == data || "".equals(data);
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getLoopLatencyNanos() {
+        return loopLatencyNanos;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public InboundMetrics getInboundMetrics() {
+        return inboundMetrics;
+    }
+
+    public OutboundMetrics getOutboundMetrics() {
+        return outboundMetrics;
+    }
+
+    public TimeoutMetrics getTimeoutMetrics() {
+        return timeoutMetrics;
+    }
+
+    public boolean isSelectedKeysOptimized() {
+        return selectedKeys != null;
+    }
+
+    public EventLoopMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,15 @@
+package com.io.nio.socket.selector;
+
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: EventLoopChooser
+ * @description: 新连接的放置策略，决定一个新接受的连接交给哪个事件循环；
+ *              可能被多个Acceptor线程同时调用，实现需要线程安全
+ * @date 2026年10月18日 18:00
+ */
+public interface EventLoopChooser {
+
+    EventLoop choose(List<EventLoop> eventLoops);
+}
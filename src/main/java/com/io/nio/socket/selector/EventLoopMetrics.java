@@ -0,0 +1,225 @@
+package com.io.nio.socket.selector;
+
+import com.io.nio.socket.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author heshuai
+ * @title: EventLoopMetrics
+ * @description: 事件循环每轮迭代的指标：select等待时间、处理时间（select返回到本轮结束）、处理的key数量和执行任务队列的时间。
+ *              由事件循环线程写入，JMX等其他线程读取
+ * @date 2026年10月18日 23:00
+ */
+public class EventLoopMetrics implements EventLoopMetricsMBean {
+
+    private final EventLoop eventLoop;
+
+    private final long stallThresholdNanos;
+
+    private final Histogram selectWait = new Histogram();
+
+    private final Histogram processing = new Histogram();
+
+    private final Histogram taskDrain = new Histogram();
+
+    private final Histogram keysPerIteration = new Histogram();
+
+    // 以下计数只由事件循环线程写入
+    private volatile long stalls;
+
+    private volatile long totalSelectWaitNanos;
+
+    private volatile long totalProcessingNanos;
+
+    EventLoopMetrics(EventLoop eventLoop, long stallThresholdMillis) {
+        this.eventLoop = eventLoop;
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+    }
+
+    /**
+     * 记录一轮迭代
+     * @return 本轮处理时间是否超过了卡顿阈值
+     */
+    boolean recordIteration(long selectWaitNanos, long processingNanos, int keys, long taskDrainNanos) {
+        selectWait.record(selectWaitNanos);
+        processing.record(processingNanos);
+        taskDrain.record(taskDrainNanos);
+        keysPerIteration.record(keys);
+        totalSelectWaitNanos += selectWaitNanos;
+        totalProcessingNanos += processingNanos;
+        if (processingNanos > stallThresholdNanos) {
+            stalls++;
+            return true;
+        }
+        return false;
+    }
+
+    public Histogram getSelectWait() {
+        return selectWait;
+    }
+
+    public Histogram getProcessing() {
+        return processing;
+    }
+
+    public Histogram getTaskDrain() {
+        return taskDrain;
+    }
+
+    public Histogram getKeysPerIteration() {
+        return keysPerIteration;
+    }
+
+    @Override
+    public long getIterations() {
+        return processing.getCount();
+    }
+
+    @Override
+    public long getSelectWaitP50Micros() {
+        return micros(selectWait.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getSelectWaitP99Micros() {
+        return micros(selectWait.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getProcessingP50Micros() {
+        return micros(processing.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getProcessingP99Micros() {
+        return micros(processing.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getProcessingP999Micros() {
+        return micros(processing.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public long getProcessingMaxMicros() {
+        return micros(processing.getMax());
+    }
+
+    @Override
+    public long getTaskDrainP99Micros() {
+        return micros(taskDrain.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getTaskDrainMaxMicros() {
+        return micros(taskDrain.getMax());
+    }
+
+    @Override
+    public long getKeysPerIterationMean() {
+        return keysPerIteration.getMean();
+    }
+
+    @Override
+    public long getKeysPerIterationMax() {
+        return keysPerIteration.getMax();
+    }
+
+    @Override
+    public double getBusyPercent() {
+        long processingNanos = totalProcessingNanos;
+        long total = processingNanos + totalSelectWaitNanos;
+        return total == 0 ? 0 : processingNanos * 100.0 / total;
+    }
+
+    @Override
+    public long getStalls() {
+        return stalls;
+    }
+
+    @Override
+    public boolean isSelectedKeysOptimized() {
+        return eventLoop.isSelectedKeysOptimized();
+    }
+
+    @Override
+    public long getStallThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(stallThresholdNanos);
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return eventLoop.getConnectionCount();
+    }
+
+    @Override
+    public long getBytesFlushed() {
+        return eventLoop.getOutboundMetrics().getBytesFlushed();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return eventLoop.getInboundMetrics().getBytesRead();
+    }
+
+    @Override
+    public double getReadCallsPerEvent() {
+        return eventLoop.getInboundMetrics().getReadCallsPerEvent();
+    }
+
+    @Override
+    public long getReceiveBufferP50() {
+        return eventLoop.getInboundMetrics().getBufferSizes().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getReceiveBufferMax() {
+        return eventLoop.getInboundMetrics().getBufferSizes().getMax();
+    }
+
+    @Override
+    public long getReceiveBufferGrows() {
+        return eventLoop.getInboundMetrics().getBufferGrows();
+    }
+
+    @Override
+    public long getReceiveBufferShrinks() {
+        return eventLoop.getInboundMetrics().getBufferShrinks();
+    }
+
+    @Override
+    public double getWriteCallsPerResponse() {
+        return eventLoop.getOutboundMetrics().getWriteCallsPerResponse();
+    }
+
+    @Override
+    public long getEarlyFlushes() {
+        return eventLoop.getOutboundMetrics().getEarlyFlushes();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return eventLoop.getTimeoutMetrics().getTotalTimeouts();
+    }
+
+    @Override
+    public void reset() {
+        selectWait.reset();
+        processing.reset();
+        taskDrain.reset();
+        keysPerIteration.reset();
+        totalSelectWaitNanos = 0;
+        totalProcessingNanos = 0;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopMetrics{iterations=" + getIterations() + ", selectWait=" + selectWait + ", processing=" + processing
+                + ", taskDrain=" + taskDrain + ", keysPerIteration=" + keysPerIteration + ", stalls=" + stalls + "}";
+    }
+}
@@ -0,0 +1,79 @@
+package com.io.nio.socket.selector;
+
+/**
+ * @author heshuai
+ * @title: EventLoopMetricsMBean
+ * @description: 通过JMX暴露的事件循环指标，时间单位均为微秒
+ * @date 2026年10月18日 23:00
+ */
+public interface EventLoopMetricsMBean {
+
+    long getIterations();
+
+    long getSelectWaitP50Micros();
+
+    long getSelectWaitP99Micros();
+
+    long getProcessingP50Micros();
+
+    long getProcessingP99Micros();
+
+    long getProcessingP999Micros();
+
+    long getProcessingMaxMicros();
+
+    long getTaskDrainP99Micros();
+
+    long getTaskDrainMaxMicros();
+
+    long getKeysPerIterationMean();
+
+    long getKeysPerIterationMax();
+
+    /**
+     * 处理耗时占整个循环时间的比例，接近100表示该事件循环已经饱和
+     */
+    double getBusyPercent();
+
+    long getStalls();
+
+    /**
+     * selectedKeys是否已经替换为数组实现
+     */
+    boolean isSelectedKeysOptimized();
+
+    long getStallThresholdMillis();
+
+    int getConnectionCount();
+
+    long getBytesFlushed();
+
+    long getBytesRead();
+
+    /**
+     * 平均每次read事件的read调用次数，包括最后一次返回0的调用，接收缓存区足够时接近2
+     */
+    double getReadCallsPerEvent();
+
+    long getReceiveBufferP50();
+
+    long getReceiveBufferMax();
+
+    long getReceiveBufferGrows();
+
+    long getReceiveBufferShrinks();
+
+    /**
+     * 平均每个响应的写系统调用次数，同一轮循环中的多个响应合并写出时小于1
+     */
+    double getWriteCallsPerResponse();
+
+    long getEarlyFlushes();
+
+    long getTimeouts();
+
+    /**
+     * 清空直方图，开始新一轮观测
+     */
+    void reset();
+}
@@ -0,0 +1,111 @@
+package com.io.nio.socket.selector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author heshuai
+ * @title: FileRegion
+ * @description: 文件中的一段区域，作为响应时通过FileChannel.transferTo直接写入SocketChannel，
+ *              在支持的平台上由内核完成拷贝（sendfile），文件内容不经过堆内存，内存占用和文件大小无关。
+ *              一次只能传输一部分时记录已传输的位置，下次可写时从该位置继续。
+ *              写完或者连接关闭时由EventLoop关闭文件
+ * @date 2026年10月18日 23:30
+ */
+public class FileRegion {
+
+    private final FileChannel file;
+    // 区域在文件中的起始位置
+    private final long position;
+    // 区域的长度
+    private final long count;
+    // 已经传输的字节数
+    private long transferred;
+
+    public FileRegion(FileChannel file, long position, long count) {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("position 和 count 不可以小于0");
+        }
+        this.file = file;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * 打开整个文件作为一个区域
+     */
+    public static FileRegion open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new FileRegion(file, 0, file.size());
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 从上次中断的位置继续传输
+     * @return 本次传输的字节数，0表示目标通道暂时不可写
+     */
+    long transferTo(WritableByteChannel target) throws IOException {
+        long written = file.transferTo(position + transferred, count - transferred, target);
+        if (written == 0 && position + transferred >= file.size()) {
+            // 文件在传输过程中被截断，区域再也无法写完
+            throw new IOException("文件在传输过程中被截断，已传输 " + transferred + " 字节，应传输 " + count + " 字节");
+        }
+        transferred += written;
+        return written;
+    }
+
+    /**
+     * 从上次中断的位置继续把区域的内容读入dst，供不能使用transferTo的传输方式（NIO.2）分块写出
+     * @return 本次读入的字节数，-1表示区域已经全部读完
+     */
+    public int read(ByteBuffer dst) throws IOException {
+        if (isDone()) {
+            return -1;
+        }
+        int limit = dst.limit();
+        if (dst.remaining() > count - transferred) {
+            dst.limit(dst.position() + (int) (count - transferred));
+        }
+        try {
+            int read = file.read(dst, position + transferred);
+            if (read <= 0) {
+                throw new IOException("文件在传输过程中被截断，已传输 " + transferred + " 字节，应传输 " + count + " 字节");
+            }
+            transferred += read;
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    boolean isDone() {
+        return transferred >= count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    /**
+     * 关闭文件，没有写出的响应被丢弃时也必须调用
+     */
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
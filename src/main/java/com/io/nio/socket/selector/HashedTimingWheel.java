@@ -0,0 +1,171 @@
+package com.io.nio.socket.selector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: HashedTimingWheel
+ * @description: 单线程的哈希时间轮，每个EventLoop持有一个，只能在所属线程中使用。
+ *              定时器按到期的tick散列到环形数组的槽中，槽内是双向链表，添加和取消都是O(1)；
+ *              EventLoop每轮循环推进一次，只需要检查经过的槽。精度为一个tick，适合连接超时这类不要求精确的定时
+ * @date 2026年10月18日 22:20
+ */
+class HashedTimingWheel {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMillis;
+    private final int mask;
+    // 每个槽的链表头
+    private final Timeout[] wheel;
+    // 时间轮的起始时间，tick从这里开始计算
+    private final long startTime;
+    // 下一个要处理的tick
+    private long tick;
+    // 未到期也未取消的定时器数量
+    private int size;
+    // 本次推进中到期的定时器，先从槽中摘下再执行，执行时可以安全地添加或取消其他定时器
+    private final List<Timeout> expired = new ArrayList<>();
+
+    HashedTimingWheel(long now) {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, now);
+    }
+
+    HashedTimingWheel(long tickMillis, int wheelSize, long now) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis必须大于0，wheelSize必须是2的幂");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.wheel = new Timeout[wheelSize];
+        this.startTime = now;
+    }
+
+    /**
+     * 添加一个定时器
+     * @param task 到期后在所属线程中执行的任务
+     * @param delayMillis 延迟时间，向上取整到tick
+     * @param now 当前时间
+     */
+    Timeout schedule(Runnable task, long delayMillis, long now) {
+        long deadline = now + Math.max(delayMillis, 0);
+        long deadlineTick = Math.max(tick, (deadline - startTime + tickMillis - 1) / tickMillis);
+        Timeout timeout = new Timeout(this, task, deadline, deadlineTick);
+        int index = (int) (deadlineTick & mask);
+        timeout.next = wheel[index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[index] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * 推进到now，执行所有到期的定时器
+     */
+    void advance(long now) {
+        long target = (now - startTime) / tickMillis;
+        if (target < tick) {
+            return;
+        }
+        // 落后超过一圈时，每个槽只需要检查一次
+        long end = Math.min(target, tick + mask);
+        for (long t = tick; t <= end; t++) {
+            Timeout timeout = wheel[(int) (t & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= target) {
+                    unlink(timeout);
+                    expired.add(timeout);
+                }
+                timeout = next;
+            }
+        }
+        tick = target + 1;
+        for (int i = 0; i < expired.size(); i++) {
+            Timeout timeout = expired.get(i);
+            // 可能已经被同一批中先执行的任务取消
+            if (timeout.state == Timeout.EXPIRED) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        expired.clear();
+    }
+
+    /**
+     * 距离下一个tick的毫秒数，EventLoop用它作为select的超时时间
+     * @return 没有定时器时返回-1
+     */
+    long millisUntilNextTick(long now) {
+        if (size == 0) {
+            return -1;
+        }
+        return Math.max(1, startTime + tick * tickMillis - now);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void unlink(Timeout timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.state = Timeout.EXPIRED;
+        size--;
+    }
+
+    /**
+     * 时间轮中的一个定时器
+     */
+    static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final HashedTimingWheel timingWheel;
+        private final Runnable task;
+        private final long deadline;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private int state = PENDING;
+
+        private Timeout(HashedTimingWheel timingWheel, Runnable task, long deadline, long deadlineTick) {
+            this.timingWheel = timingWheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * 取消定时器，只能在所属线程中调用；已经到期或取消的定时器调用无效果
+         */
+        void cancel() {
+            if (state == PENDING) {
+                timingWheel.unlink(this);
+            }
+            state = CANCELLED;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+    }
+}
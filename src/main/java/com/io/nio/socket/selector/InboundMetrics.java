@@ -0,0 +1,76 @@
+package com.io.nio.socket.selector;
+
+import com.io.nio.socket.metrics.Histogram;
+
+/**
+ * @author heshuai
+ * @title: InboundMetrics
+ * @description: 事件循环的入站统计，包括每次read事件的read调用次数和自适应接收缓存区的调整情况，
+ *              只由所属线程写入，其他线程只读
+ * @date 2026年10月19日 15:40
+ */
+public class InboundMetrics {
+
+    // 读到的总字节数
+    private volatile long bytesRead;
+    // 处理的read事件数
+    private volatile long readEvents;
+    // read系统调用的次数，包括最后一次返回0或-1的调用
+    private volatile long readCalls;
+    // 接收缓存区放大的次数
+    private volatile long bufferGrows;
+    // 接收缓存区缩小的次数
+    private volatile long bufferShrinks;
+    // 每次read事件使用的接收缓存区大小
+    private final Histogram bufferSizes = new Histogram();
+
+    void recordReadEvent(int bufferSize, int calls, long bytes, int adjustment) {
+        readEvents++;
+        readCalls += calls;
+        bytesRead += bytes;
+        if (adjustment > 0) {
+            bufferGrows++;
+        } else if (adjustment < 0) {
+            bufferShrinks++;
+        }
+        bufferSizes.record(bufferSize);
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getReadEvents() {
+        return readEvents;
+    }
+
+    public long getReadCalls() {
+        return readCalls;
+    }
+
+    /**
+     * 平均每次read事件的read调用次数，接收缓存区偏小时大于2
+     */
+    public double getReadCallsPerEvent() {
+        long events = readEvents;
+        return events == 0 ? 0 : (double) readCalls / events;
+    }
+
+    public long getBufferGrows() {
+        return bufferGrows;
+    }
+
+    public long getBufferShrinks() {
+        return bufferShrinks;
+    }
+
+    public Histogram getBufferSizes() {
+        return bufferSizes;
+    }
+
+    @Override
+    public String toString() {
+        return "InboundMetrics{bytesRead=" + bytesRead + ", readEvents=" + readEvents + ", readCalls=" + readCalls
+                + ", bufferGrows=" + bufferGrows + ", bufferShrinks=" + bufferShrinks + ", bufferSizes=" + bufferSizes + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.io.nio.socket.selector;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author heshuai
+ * @title: LeastConnectionsEventLoopChooser
+ * @description: 放到当前连接数最少的事件循环上，连接数相同时从轮转的起点开始选，避免总是集中到第一个
+ * @date 2026年10月18日 18:10
+ */
+public class LeastConnectionsEventLoopChooser implements EventLoopChooser {
+
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public EventLoop choose(List<EventLoop> eventLoops) {
+        int size = eventLoops.size();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+        EventLoop chosen = eventLoops.get(start);
+        int least = chosen.getConnectionCount();
+        for (int i = 1; i < size && least > 0; i++) {
+            EventLoop eventLoop = eventLoops.get((start + i) % size);
+            int count = eventLoop.getConnectionCount();
+            if (count < least) {
+                least = count;
+                chosen = eventLoop;
+            }
+        }
+        return chosen;
+    }
+}
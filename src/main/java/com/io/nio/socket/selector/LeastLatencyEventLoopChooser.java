@@ -0,0 +1,33 @@
+package com.io.nio.socket.selector;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author heshuai
+ * @title: LeastLatencyEventLoopChooser
+ * @description: 放到最近每轮循环处理耗时最短的事件循环上，耗时反映的是该循环上连接的实际繁忙程度，
+ *              而不只是连接数量；耗时相同时从轮转的起点开始选
+ * @date 2026年10月18日 18:15
+ */
+public class LeastLatencyEventLoopChooser implements EventLoopChooser {
+
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public EventLoop choose(List<EventLoop> eventLoops) {
+        int size = eventLoops.size();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+        EventLoop chosen = eventLoops.get(start);
+        long least = chosen.getLoopLatencyNanos();
+        for (int i = 1; i < size; i++) {
+            EventLoop eventLoop = eventLoops.get((start + i) % size);
+            long latency = eventLoop.getLoopLatencyNanos();
+            if (latency < least) {
+                least = latency;
+                chosen = eventLoop;
+            }
+        }
+        return chosen;
+    }
+}
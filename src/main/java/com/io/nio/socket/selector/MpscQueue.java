@@ -0,0 +1,55 @@
+package com.io.nio.socket.selector;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author heshuai
+ * @title: MpscQueue
+ * @description: 无锁的多生产者单消费者队列（Vyukov算法），生产者只做一次getAndSet，不会互相阻塞；
+ *              poll和isEmpty只能由唯一的消费者线程调用
+ * @date 2026年10月18日 16:00
+ */
+public class MpscQueue<E> {
+
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    // 生产者竞争的队尾
+    private final AtomicReference<Node<E>> tail;
+    // 消费者独占的队头，始终指向一个已经被消费的哨兵节点
+    private Node<E> head;
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(E value) {
+        Node<E> node = new Node<>(value);
+        // 先抢占队尾，再把前一个节点链接到新节点上；两步之间消费者最多暂时看不到这个节点
+        Node<E> prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
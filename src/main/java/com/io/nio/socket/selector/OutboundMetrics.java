@@ -0,0 +1,85 @@
+package com.io.nio.socket.selector;
+
+/**
+ * @author heshuai
+ * @title: OutboundMetrics
+ * @description: write多路复用器的出站统计，只由所属线程写入，其他线程只读
+ * @date 2026年10月18日 15:20
+ */
+public class OutboundMetrics {
+
+    // 写出的总字节数
+    private volatile long bytesFlushed;
+    // 因为内核发送缓存已满而等待的总时间，单位纳秒
+    private volatile long blockedNanos;
+    // 内核只接收了部分数据的写次数
+    private volatile long partialWrites;
+    // write/transferTo系统调用的次数
+    private volatile long writeCalls;
+    // 加入出站队列的响应数
+    private volatile long responses;
+    // 出站队列超过阈值、没有等到本轮循环结束就写出的次数
+    private volatile long earlyFlushes;
+
+    void addBytesFlushed(long bytes) {
+        bytesFlushed += bytes;
+    }
+
+    void addBlockedNanos(long nanos) {
+        blockedNanos += nanos;
+    }
+
+    void incrementPartialWrites() {
+        partialWrites++;
+    }
+
+    void incrementWriteCalls() {
+        writeCalls++;
+    }
+
+    void incrementResponses() {
+        responses++;
+    }
+
+    void incrementEarlyFlushes() {
+        earlyFlushes++;
+    }
+
+    public long getBytesFlushed() {
+        return bytesFlushed;
+    }
+
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    public long getPartialWrites() {
+        return partialWrites;
+    }
+
+    public long getWriteCalls() {
+        return writeCalls;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public long getEarlyFlushes() {
+        return earlyFlushes;
+    }
+
+    /**
+     * 平均每个响应的写系统调用次数，同一轮循环中的多个响应合并写出时小于1
+     */
+    public double getWriteCallsPerResponse() {
+        long count = responses;
+        return count == 0 ? 0 : (double) writeCalls / count;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundMetrics{bytesFlushed=" + bytesFlushed + ", blockedNanos=" + blockedNanos + ", partialWrites=" + partialWrites
+                + ", writeCalls=" + writeCalls + ", responses=" + responses + ", earlyFlushes=" + earlyFlushes + "}";
+    }
+}
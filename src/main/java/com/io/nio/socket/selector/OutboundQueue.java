@@ -0,0 +1,134 @@
+package com.io.nio.socket.selector;
+
+import com.io.nio.socket.buffer.ByteBufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * @author heshuai
+ * @title: OutboundQueue
+ * @description: 连接的出站队列，只由连接所属的EventLoop线程访问。
+ *              同一轮循环中入队的多个响应在本轮结束时一起写出，相邻的buffer使用聚集写一次写出多个，文件区域使用transferTo写出；
+ *              内核没有接收的字节留在队列中，等待下一次write事件从中断的位置继续写
+ * @date 2026年10月18日 15:10
+ */
+public class OutboundQueue {
+
+    // 一次聚集写最多携带的buffer数量
+    private static final int MAX_GATHERING_BUFFERS = 64;
+
+    // 元素是ByteBuffer或者FileRegion，按写出顺序排列
+    private final ArrayDeque<Object> entries = new ArrayDeque<>();
+
+    private final ByteBuffer[] gathering = new ByteBuffer[MAX_GATHERING_BUFFERS];
+    // 内核发送缓存写满的时间点，-1表示当前没有阻塞
+    private long blockedSince = -1;
+    // 队列中还没有写出的字节数，包括文件区域剩余的部分
+    private long pendingBytes;
+
+    public void add(ByteBuffer buffer) {
+        entries.addLast(buffer);
+        pendingBytes += buffer.remaining();
+    }
+
+    public void add(FileRegion region) {
+        entries.addLast(region);
+        pendingBytes += region.getCount() - region.getTransferred();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * 尽可能多地写出队列中的数据，写完的buffer归还给pool，写完的文件区域关闭文件
+     * @return true表示队列已经全部写出；false表示内核发送缓存已满，需要继续关注write事件
+     */
+    public boolean flush(GatheringByteChannel channel, ByteBufferPool pool, OutboundMetrics metrics) throws IOException {
+        if (blockedSince != -1) {
+            // 上一次因为发送缓存已满而中断，现在重新可写，统计阻塞的时间
+            metrics.addBlockedNanos(System.nanoTime() - blockedSince);
+            blockedSince = -1;
+        }
+        while (!entries.isEmpty()) {
+            boolean full = entries.peekFirst() instanceof FileRegion
+                    ? !transferRegion(channel, metrics)
+                    : !writeBuffers(channel, pool, metrics);
+            if (full) {
+                // 内核只接收了一部分，剩余的字节等待下一次write事件
+                metrics.incrementPartialWrites();
+                blockedSince = System.nanoTime();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 聚集写出队首连续的buffer
+     * @return 这些buffer是否全部写出
+     */
+    private boolean writeBuffers(GatheringByteChannel channel, ByteBufferPool pool, OutboundMetrics metrics) throws IOException {
+        int length = 0;
+        for (Object entry : entries) {
+            if (length == MAX_GATHERING_BUFFERS || !(entry instanceof ByteBuffer)) {
+                break;
+            }
+            gathering[length++] = (ByteBuffer) entry;
+        }
+        long written = channel.write(gathering, 0, length);
+        metrics.incrementWriteCalls();
+        pendingBytes -= written;
+        boolean full = gathering[length - 1].hasRemaining();
+        Arrays.fill(gathering, 0, length, null);
+        metrics.addBytesFlushed(written);
+        while (!entries.isEmpty() && entries.peekFirst() instanceof ByteBuffer && !((ByteBuffer) entries.peekFirst()).hasRemaining()) {
+            pool.release((ByteBuffer) entries.pollFirst());
+        }
+        return !full;
+    }
+
+    /**
+     * 传输队首的文件区域，transferTo一次可能只传输一部分，直到内核不再接收为止
+     * @return 文件区域是否全部写出
+     */
+    private boolean transferRegion(GatheringByteChannel channel, OutboundMetrics metrics) throws IOException {
+        FileRegion region = (FileRegion) entries.peekFirst();
+        while (!region.isDone()) {
+            long written = region.transferTo(channel);
+            metrics.incrementWriteCalls();
+            pendingBytes -= written;
+            if (written == 0) {
+                return false;
+            }
+            metrics.addBytesFlushed(written);
+        }
+        entries.pollFirst();
+        region.close();
+        return true;
+    }
+
+    /**
+     * 连接关闭时丢弃所有未写出的数据并归还buffer
+     */
+    public void release(ByteBufferPool pool) {
+        Object entry;
+        while ((entry = entries.pollFirst()) != null) {
+            if (entry instanceof FileRegion) {
+                ((FileRegion) entry).close();
+            } else {
+                pool.release((ByteBuffer) entry);
+            }
+        }
+        blockedSince = -1;
+        pendingBytes = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package com.io.nio.socket.selector;
+
+/**
+ * @author heshuai
+ * @title: ReceiveBufferSizer
+ * @description: 按连接最近的读取量预测下一次read事件使用的缓存区大小，只由连接所属的EventLoop线程访问。
+ *              可选的大小是从最小值开始逐级翻倍直到最大值的一组2的幂，和ByteBufferPool的分级一致：
+ *              一次read事件读满了当前大小时直接放大两级（4倍），尽快减少大请求的read次数；
+ *              连续两次read事件的读取量都不超过小一级的大小时才缩小一级，避免在边界上来回抖动
+ * @date 2026年10月19日 15:30
+ */
+class ReceiveBufferSizer {
+
+    // 读满时一次放大的级数
+    private static final int INDEX_INCREMENT = 2;
+
+    // 所有连接共用的可选大小，从小到大
+    private final int[] sizes;
+
+    private int index;
+    // 上一次read事件的读取量已经偏小，这一次仍然偏小时缩小
+    private boolean decreaseNow;
+
+    ReceiveBufferSizer(int[] sizes, int initialIndex) {
+        this.sizes = sizes;
+        this.index = initialIndex;
+    }
+
+    /**
+     * 生成可选的大小，从最小值开始逐级翻倍，最后一级为最大值
+     */
+    static int[] sizeTable(int minSize, int maxSize) {
+        int count = 1;
+        for (long size = minSize; size < maxSize; size <<= 1) {
+            count++;
+        }
+        int[] sizes = new int[count];
+        long size = minSize;
+        for (int i = 0; i < count; i++) {
+            sizes[i] = (int) Math.min(size, maxSize);
+            size <<= 1;
+        }
+        return sizes;
+    }
+
+    /**
+     * 不小于size的最小一级，size超过最大值时为最大一级
+     */
+    static int indexOf(int[] sizes, int size) {
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] >= size) {
+                return i;
+            }
+        }
+        return sizes.length - 1;
+    }
+
+    int nextSize() {
+        return sizes[index];
+    }
+
+    /**
+     * 记录一次read事件的总读取量，调整下一次的大小
+     * @return 1表示放大，-1表示缩小，0表示不变
+     */
+    int record(int bytesRead) {
+        if (bytesRead >= sizes[index]) {
+            decreaseNow = false;
+            if (index == sizes.length - 1) {
+                return 0;
+            }
+            index = Math.min(index + INDEX_INCREMENT, sizes.length - 1);
+            return 1;
+        }
+        if (index > 0 && bytesRead <= sizes[index - 1]) {
+            if (decreaseNow) {
+                decreaseNow = false;
+                index--;
+                return -1;
+            }
+            decreaseNow = true;
+            return 0;
+        }
+        decreaseNow = false;
+        return 0;
+    }
+}
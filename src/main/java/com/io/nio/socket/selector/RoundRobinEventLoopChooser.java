@@ -0,0 +1,20 @@
+package com.io.nio.socket.selector;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author heshuai
+ * @title: RoundRobinEventLoopChooser
+ * @description: 轮询放置，不考虑事件循环的负载
+ * @date 2026年10月18日 18:05
+ */
+public class RoundRobinEventLoopChooser implements EventLoopChooser {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public EventLoop choose(List<EventLoop> eventLoops) {
+        return eventLoops.get(Math.floorMod(next.getAndIncrement(), eventLoops.size()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.io.nio.socket.selector;
+
+import com.io.log.AsyncLogger;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author heshuai
+ * @title: SelectedKeySet
+ * @description: 用数组实现的selectedKeys集合，通过反射替换JDK selector实现中的HashSet。
+ *              select时JDK只会向集合中add，add只是一次数组赋值，不计算hash、不创建节点；
+ *              事件循环按下标遍历，不创建Iterator，也不需要逐个remove，处理完一轮之后整体清空。
+ *              contains和remove始终返回false：JDK在select之前会清理已取消的key，
+ *              而本集合在每轮处理之后都会清空，数组中残留的已取消key由调用方通过isValid过滤。
+ *              JDK9及以上需要添加 --add-opens java.base/sun.nio.ch=ALL-UNNAMED 才能替换，否则保持JDK自带的实现
+ * @date 2026年10月19日 14:00
+ */
+public final class SelectedKeySet extends AbstractSet<SelectionKey> {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SelectedKeySet.class);
+    // 无法替换的原因只输出一次
+    private static volatile boolean fallbackLogged;
+
+    private SelectionKey[] keys = new SelectionKey[1024];
+
+    private int size;
+
+    /**
+     * 把selector的selectedKeys替换为一个新的SelectedKeySet
+     * @return 替换后的集合；当前JDK不允许替换时返回null，调用方继续使用selector.selectedKeys()
+     */
+    public static SelectedKeySet install(Selector selector) {
+        try {
+            Class<?> selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl", false, SelectedKeySet.class.getClassLoader());
+            if (!selectorImplClass.isInstance(selector)) {
+                fallback("selector 不是 sun.nio.ch.SelectorImpl: " + selector.getClass().getName());
+                return null;
+            }
+            Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+            SelectedKeySet keySet = new SelectedKeySet();
+            selectedKeysField.set(selector, keySet);
+            publicSelectedKeysField.set(selector, keySet);
+            return keySet;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // JDK9及以上没有开放sun.nio.ch时setAccessible抛出InaccessibleObjectException
+            fallback(e.toString());
+            return null;
+        }
+    }
+
+    private static void fallback(String reason) {
+        if (!fallbackLogged) {
+            fallbackLogged = true;
+            LOGGER.warn("无法替换selectedKeys，继续使用JDK自带的HashSet，原因：{}", reason);
+        }
+    }
+
+    @Override
+    public boolean add(SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        keys[size++] = key;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第index个就绪的key，0 <= index < size()
+     */
+    public SelectionKey get(int index) {
+        return keys[index];
+    }
+
+    /**
+     * 一轮处理结束后清空，同时释放对key的引用
+     */
+    public void reset() {
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public SelectionKey next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[index++];
+            }
+        };
+    }
+}
@@ -1,13 +1,24 @@
 package com.io.nio.socket.selector;
 
+import com.io.log.AsyncLogger;
 import com.io.nio.socket.CustomizedThreadPool;
+import com.io.nio.socket.codec.FrameDecoder;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
-import java.nio.channels.*;
+import java.net.SocketOption;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * @author heshuai
@@ -16,68 +27,186 @@ import java.util.List;
  * @date 2021年07月17日 17:47
  */
 public class SelectorManager {
-    // 关注read事件的selector的集合
-    private final static List<Selector> readSelectors = new ArrayList<>();
-    // 关注write事件的selector的集合
-    private final static List<Selector> writeSelectors = new ArrayList<>();
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SelectorManager.class);
+
+    // 事件循环的集合，每个连接只属于其中一个，由它负责读和写
+    private final List<EventLoop> eventLoops = new ArrayList<>();
+    // 启动后创建的accept循环和监听通道，close时关闭
+    private final List<Acceptor> acceptors = new ArrayList<>();
+    private final List<ServerSocketChannel> serverChannels = new ArrayList<>();
+    // 本实例注册的MBean，close时只注销这些，不影响同一进程中的其他服务
+    private final List<ObjectName> mBeanNames = new ArrayList<>();
 
     private final int PORT;
+    // 为每个新连接创建帧解码器
+    private final Supplier<FrameDecoder<Object>> frameDecoderFactory;
+    // accept循环的数量
+    private final int acceptorAccount;
+    // 一次accept事件最多接受的连接数
+    private final int acceptBatchSize;
+    // 每个Acceptor是否使用独立的SO_REUSEPORT监听通道
+    private final boolean reusePort;
+    // 新连接的放置策略，多个Acceptor共享
+    private final EventLoopChooser eventLoopChooser;
+    // 是否把selector的selectedKeys替换为数组实现
+    private final boolean optimizeSelectedKeys;
+
+    SelectorManager(SelectorManagerBuilder builder) throws IOException {
+        this.PORT = builder.getPort();
+        this.frameDecoderFactory = builder.getFrameDecoderFactory();
+        this.acceptorAccount = builder.getAcceptorAccount();
+        this.acceptBatchSize = builder.getAcceptBatchSize();
+        this.reusePort = builder.isReusePort();
+        this.eventLoopChooser = builder.getEventLoopChooser();
+        this.optimizeSelectedKeys = builder.isOptimizeSelectedKeys();
+        for (int i = 0; i < builder.getEventLoopAccount(); i++) {
+            // 初始化事件循环，每个事件循环独占一个多路复用器
+            EventLoop eventLoop = new EventLoop(Selector.open(), builder);
+            CustomizedThreadPool.sockedHandlerSubmit(eventLoop);
+            eventLoops.add(eventLoop);
+        }
+    }
 
-    public SelectorManager(int port, int readAndWriteSelectorAccount) throws IOException {
-        this.PORT = port;
-        for (int i = 0; i < readAndWriteSelectorAccount; i++) {
-            // 初始化写相关多路复用器
-            Selector writeSelector = Selector.open();
-            CustomizedThreadPool.sockedHandlerSubmit(new WriteSelector(writeSelector));
-            writeSelectors.add(writeSelector);
-            // 初始化读相关多路复用器
-            Selector readSelector = Selector.open();
-            CustomizedThreadPool.sockedHandlerSubmit(new ReadSelector(readSelector, writeSelector));
-            readSelectors.add(readSelector);
+    /**
+     * 把事件循环的指标注册到平台MBeanServer，名称使用实际监听的端口，端口配置为0的多个服务不会冲突。
+     * 同名的MBean已经存在时（另一个服务通过SO_REUSEPORT监听同一端口）跳过注册，注册失败不影响服务
+     */
+    private void registerMBeans(int port) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (int i = 0; i < eventLoops.size(); i++) {
+            try {
+                ObjectName name = new ObjectName("com.io.nio.socket:type=EventLoop,port=" + port + ",index=" + i);
+                mBeanServer.registerMBean(eventLoops.get(i).getMetrics(), name);
+                mBeanNames.add(name);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.warn("MBean {} 已经被其他服务注册，跳过", e.getMessage());
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
         }
     }
 
+    /**
+     * 启动服务，当前线程作为第一个Acceptor一直阻塞
+     */
     public void startNIO() throws IOException {
-        // 多路复用器
-        Selector acceptSelector = Selector.open();
-        // 服务端通道
-        ServerSocketChannel ssc = ServerSocketChannel.open();
-        // 设置为非阻塞
-        ssc.configureBlocking(false);
-        // 监听本地端口
-        ssc.bind(new InetSocketAddress(this.PORT));
-        ssc.register(acceptSelector, SelectionKey.OP_ACCEPT);
-        int i = 0;
-        while (true) {
-            // 返回已经准备好并且感兴趣的selectedKeys数量
-            if (acceptSelector.selectNow() == 0) {
-                continue;
+        openAcceptors();
+        for (int i = 1; i < acceptors.size(); i++) {
+            CustomizedThreadPool.sockedHandlerSubmit(acceptors.get(i));
+        }
+        // 当前线程作为第一个Acceptor，startNIO和之前一样一直阻塞
+        acceptors.get(0).run();
+    }
+
+    /**
+     * 启动服务后立即返回，所有Acceptor都在线程池中运行，供在同一进程中启动、停止服务的场景使用（如基准测试）
+     */
+    public void start() throws IOException {
+        openAcceptors();
+        for (Acceptor acceptor : acceptors) {
+            CustomizedThreadPool.sockedHandlerSubmit(acceptor);
+        }
+    }
+
+    private void openAcceptors() throws IOException {
+        // 不使用SO_REUSEPORT时，所有Acceptor共享同一个服务端通道
+        ServerSocketChannel sharedChannel = null;
+        boolean reusePort = this.reusePort;
+        // 端口为0时由第一个监听通道确定实际端口，之后的通道监听同一个端口
+        int port = this.PORT;
+        for (int i = 0; i < acceptorAccount; i++) {
+            ServerSocketChannel ssc = null;
+            if (reusePort) {
+                ssc = openReusePortChannel(port);
+                if (ssc == null) {
+                    LOGGER.warn("当前JDK或平台不支持SO_REUSEPORT，多个Acceptor改为共享同一个监听通道");
+                    reusePort = false;
+                } else {
+                    serverChannels.add(ssc);
+                }
             }
-            // 返回已经准备好并且感兴趣的selectedKeys集合
-            Iterator<SelectionKey> keyIterator = acceptSelector.selectedKeys().iterator();
-            while (keyIterator.hasNext()) {
-                SelectionKey key = keyIterator.next();
-                if (key.isAcceptable()) {
-                    ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-                    // 接受客户端请求
-                    SocketChannel socketChannel = serverChannel.accept();
-                    socketChannel.configureBlocking(false);
-                    Selector readSelector = readSelectors.get(i % readSelectors.size());
-                    // 关注Read事件
-                    socketChannel.register(readSelector,SelectionKey.OP_READ);
-                    // 将当前的selectorKey从selectedKeys移除，就不会重复触发accept事件了；
-                    // 除非再次有请求到达触发该强求
-                    keyIterator.remove();
-                    // 唤醒read多路复用器所在线程，减少线程等待时间
-                    readSelector.wakeup();
-                    i++;
-                    if (i == Integer.MAX_VALUE - 1) {
-                        i = 0;
-                    }
+            if (ssc == null) {
+                if (sharedChannel == null) {
+                    sharedChannel = openChannel();
+                    // 监听本地端口
+                    sharedChannel.bind(new InetSocketAddress(port));
+                    serverChannels.add(sharedChannel);
                 }
+                ssc = sharedChannel;
+            }
+            port = ((InetSocketAddress) ssc.getLocalAddress()).getPort();
+            acceptors.add(new Acceptor(ssc, acceptBatchSize, this::dispatch, optimizeSelectedKeys));
+        }
+        registerMBeans(port);
+    }
+
+    /**
+     * 停止服务：先停止接受新连接，再停止所有事件循环并关闭它们的连接，注销MBean
+     */
+    public void close() throws IOException {
+        for (Acceptor acceptor : acceptors) {
+            acceptor.close();
+        }
+        for (ServerSocketChannel serverChannel : serverChannels) {
+            serverChannel.close();
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : mBeanNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            } catch (JMException e) {
+                e.printStackTrace();
             }
         }
+        mBeanNames.clear();
     }
 
+    /**
+     * 实际监听的端口，端口配置为0时由系统分配；启动之前返回配置的端口
+     */
+    public int getPort() throws IOException {
+        if (serverChannels.isEmpty()) {
+            return PORT;
+        }
+        return ((InetSocketAddress) serverChannels.get(0).getLocalAddress()).getPort();
+    }
 
+    /**
+     * 按放置策略把新连接交给事件循环，由它在自己的线程中注册并关注Read事件，accept线程不跨线程操作它的selector
+     */
+    private void dispatch(SocketChannel socketChannel) {
+        eventLoopChooser.choose(eventLoops).register(socketChannel, frameDecoderFactory.get());
+    }
+
+    public List<EventLoop> getEventLoops() {
+        return Collections.unmodifiableList(eventLoops);
+    }
+
+    private ServerSocketChannel openChannel() throws IOException {
+        // 服务端通道
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        // 设置为非阻塞
+        ssc.configureBlocking(false);
+        return ssc;
+    }
+
+    /**
+     * 打开一个设置了SO_REUSEPORT的监听通道，由内核在多个监听同一端口的通道之间分配新连接
+     * @return 不支持SO_REUSEPORT时返回null
+     */
+    private ServerSocketChannel openReusePortChannel(int port) throws IOException {
+        ServerSocketChannel ssc = openChannel();
+        SocketOption<Boolean> reusePortOption = Acceptor.reusePortOption(ssc);
+        if (reusePortOption == null) {
+            ssc.close();
+            return null;
+        }
+        ssc.setOption(reusePortOption, true);
+        ssc.bind(new InetSocketAddress(port));
+        return ssc;
+    }
 }
@@ -1,12 +1,19 @@
 package com.io.nio.socket.selector;
 
+import com.io.nio.socket.codec.FrameDecoder;
+import com.io.nio.socket.codec.LineFrameDecoder;
+import com.io.nio.socket.codec.http.HttpRequestDecoder;
+import com.io.nio.socket.codec.mux.MuxFrameDecoder;
+import com.io.nio.socket.service.ExecutionStrategy;
+import com.io.nio.socket.service.ServiceHandler;
+import com.io.nio.socket.service.http.HttpRouter;
+import com.io.nio.socket.service.mux.MuxHandler;
+import com.io.nio.socket.service.mux.MuxServiceHandler;
+import com.io.nio.socket.service.impl.SimpleServiceImpl;
+
 import java.io.IOException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.nio.channels.spi.SelectorProvider;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
 
 /**
  * @author heshuai
@@ -16,13 +23,369 @@ import java.util.Set;
  */
 public class SelectorManagerBuilder {
 
+    // 默认的连接空闲超时时间，单位毫秒
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60 * 1000;
+
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 30 * 1000;
+
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 30 * 1000;
+
+    public static final long DEFAULT_STALL_THRESHOLD_MILLIS = 100;
+
+    public static final int DEFAULT_FLUSH_THRESHOLD_BYTES = 64 * 1024;
+
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 128;
+
+    public static final String DEFAULT_REJECT_RESPONSE = "Server Busy!!!\n";
+
+    public static final int DEFAULT_MIN_RECEIVE_BUFFER_SIZE = 512;
+
+    public static final int DEFAULT_INITIAL_RECEIVE_BUFFER_SIZE = 1024;
+
+    public static final int DEFAULT_MAX_RECEIVE_BUFFER_SIZE = 64 * 1024;
+
+    private final int port;
+
+    // 事件循环的数量，每个事件循环同时负责所属连接的读和写
+    private int eventLoopAccount = Runtime.getRuntime().availableProcessors();
+
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private long readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    private long writeTimeoutMillis = DEFAULT_WRITE_TIMEOUT_MILLIS;
+    // 事件循环单轮处理时间超过该值时输出卡顿日志
+    private long stallThresholdMillis = DEFAULT_STALL_THRESHOLD_MILLIS;
+    // 连接出站队列中的数据达到该字节数时立即写出，否则等到本轮循环结束时合并写出
+    private int flushThresholdBytes = DEFAULT_FLUSH_THRESHOLD_BYTES;
+    // 每个连接创建一个独立的帧解码器，默认按行分隔；解码器解析出的请求类型必须和serviceHandler的请求类型一致
+    private Supplier<? extends FrameDecoder<?>> frameDecoderFactory = LineFrameDecoder::new;
+    // accept循环的数量
+    private int acceptorAccount = 1;
+    // 一次accept事件最多接受的连接数
+    private int acceptBatchSize = 64;
+    // 多个Acceptor是否各自使用SO_REUSEPORT监听同一端口，不支持时退回共享监听通道
+    private boolean reusePort;
+    // 新连接的放置策略，默认轮询
+    private EventLoopChooser eventLoopChooser = new RoundRobinEventLoopChooser();
+    // 业务处理器，整个服务只创建一次
+    private ServiceHandler<?> serviceHandler = new SimpleServiceImpl();
+    // 业务处理器的执行策略，默认交给共享的读写线程池
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.sharedPool();
+    // 超过并发上限时直接回复的响应，默认的行协议以\n结尾，客户端可以按行切分响应
+    private String rejectResponse = DEFAULT_REJECT_RESPONSE;
+    // 协议是否支持多路复用：同一连接上的多个请求同时处理，响应按完成顺序写出，而不是按请求顺序
+    private boolean multiplexed;
+    // 多路复用时每个连接同时处理的最大请求数，达到后暂停读取该连接，直到有请求完成
+    private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+    // 是否把selector的selectedKeys替换为数组实现，当前JDK不允许时自动退回HashSet
+    private boolean optimizeSelectedKeys = true;
+    // 每个连接的接收缓存区在最小值和最大值之间按最近的读取量调整，新连接从初始值开始
+    private int minReceiveBufferSize = DEFAULT_MIN_RECEIVE_BUFFER_SIZE;
+    private int initialReceiveBufferSize = DEFAULT_INITIAL_RECEIVE_BUFFER_SIZE;
+    private int maxReceiveBufferSize = DEFAULT_MAX_RECEIVE_BUFFER_SIZE;
+
+    private SelectorManagerBuilder(int port) {
+        this.port = port;
+    }
+
+    public static SelectorManagerBuilder port(int port) {
+        return new SelectorManagerBuilder(port);
+    }
+
+    public static SelectorManager build(int port, int eventLoopAccount) throws IOException {
+        return port(port).eventLoopAccount(eventLoopAccount).build();
+    }
+
+    public static SelectorManager build(int port, int eventLoopAccount, long idleTimeoutMillis) throws IOException {
+        return port(port).eventLoopAccount(eventLoopAccount).idleTimeoutMillis(idleTimeoutMillis).build();
+    }
+
+    public SelectorManagerBuilder eventLoopAccount(int eventLoopAccount) {
+        this.eventLoopAccount = eventLoopAccount;
+        return this;
+    }
+
+    public SelectorManagerBuilder idleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 请求读到一部分之后，剩余数据必须在该时间内到达，否则关闭连接
+     */
+    public SelectorManagerBuilder readTimeoutMillis(long readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 响应因为客户端不读取而无法写出时，最多等待的时间
+     */
+    public SelectorManagerBuilder writeTimeoutMillis(long writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        return this;
+    }
+
+    public SelectorManagerBuilder frameDecoder(Supplier<? extends FrameDecoder<ByteBuffer>> frameDecoderFactory) {
+        this.frameDecoderFactory = frameDecoderFactory;
+        leaveMux();
+        return this;
+    }
+
+    public SelectorManagerBuilder acceptorAccount(int acceptorAccount) {
+        this.acceptorAccount = acceptorAccount;
+        return this;
+    }
+
+    public SelectorManagerBuilder acceptBatchSize(int acceptBatchSize) {
+        this.acceptBatchSize = acceptBatchSize;
+        return this;
+    }
+
+    public SelectorManagerBuilder reusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    public SelectorManagerBuilder eventLoopChooser(EventLoopChooser eventLoopChooser) {
+        this.eventLoopChooser = eventLoopChooser;
+        return this;
+    }
+
+    public SelectorManagerBuilder serviceHandler(ServiceHandler<ByteBuffer> serviceHandler) {
+        this.serviceHandler = serviceHandler;
+        leaveMux();
+        return this;
+    }
+
+    public SelectorManagerBuilder serviceHandler(ServiceHandler<ByteBuffer> serviceHandler, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return serviceHandler(serviceHandler);
+    }
+
+    /**
+     * 同时指定帧解码器和处理它解析出的请求的业务处理器，用于请求类型不是ByteBuffer的协议
+     */
+    public <T> SelectorManagerBuilder codec(Supplier<? extends FrameDecoder<T>> frameDecoderFactory, ServiceHandler<T> serviceHandler) {
+        this.frameDecoderFactory = frameDecoderFactory;
+        this.serviceHandler = serviceHandler;
+        leaveMux();
+        return this;
+    }
 
-    public static SelectorManager build(int port, int readAndWriteSelectorAccount) throws IOException {
-        if (readAndWriteSelectorAccount == 0) {
-            throw new IllegalArgumentException("readAndWriteSelectorAccount 不可以为0");
+    public <T> SelectorManagerBuilder codec(Supplier<? extends FrameDecoder<T>> frameDecoderFactory, ServiceHandler<T> serviceHandler,
+                                            ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return codec(frameDecoderFactory, serviceHandler);
+    }
+
+    /**
+     * 在mux之后替换帧解码器或业务处理器时，不再按多路复用协议处理，拒绝响应也恢复为按行分隔的默认值
+     */
+    private void leaveMux() {
+        if (multiplexed) {
+            multiplexed = false;
+            rejectResponse = DEFAULT_REJECT_RESPONSE;
         }
-        return new SelectorManager(port, readAndWriteSelectorAccount);
     }
 
+    /**
+     * 以HTTP/1.1协议提供服务，请求按路径交给router中注册的处理器，过载时回复503
+     */
+    public SelectorManagerBuilder http(HttpRouter router) {
+        codec(HttpRequestDecoder::new, router);
+        this.rejectResponse = "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n";
+        return this;
+    }
+
+    public SelectorManagerBuilder http(HttpRouter router, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return http(router);
+    }
+
+    /**
+     * 以多路复用的二进制协议（见MuxFrame）提供服务，同一连接上的请求同时交给handler处理，响应按完成顺序写出
+     */
+    public SelectorManagerBuilder mux(MuxHandler handler) {
+        codec(MuxFrameDecoder::new, new MuxServiceHandler(handler));
+        // 拒绝响应作为ERROR帧的payload，帧本身有长度，不需要分隔符
+        this.rejectResponse = "Server Busy!!!";
+        this.multiplexed = true;
+        return this;
+    }
+
+    public SelectorManagerBuilder mux(MuxHandler handler, ExecutionStrategy executionStrategy) {
+        this.executionStrategy = executionStrategy;
+        return mux(handler);
+    }
+
+    /**
+     * 多路复用时每个连接同时处理的最大请求数
+     */
+    public SelectorManagerBuilder maxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * 事件循环单轮处理时间（不含select等待）超过该值时输出卡顿日志
+     */
+    public SelectorManagerBuilder stallThresholdMillis(long stallThresholdMillis) {
+        this.stallThresholdMillis = stallThresholdMillis;
+        return this;
+    }
+
+    /**
+     * 同一轮循环中产生的响应在本轮结束时合并为一次聚集写；出站队列中的数据达到该字节数时不再等待，立即写出。
+     * 为0时每个响应入队后立即写出，即不合并
+     */
+    public SelectorManagerBuilder flushThresholdBytes(int flushThresholdBytes) {
+        this.flushThresholdBytes = flushThresholdBytes;
+        return this;
+    }
 
+    /**
+     * 把selector的selectedKeys从HashSet替换为数组实现，减少每轮select产生的垃圾和哈希开销。
+     * JDK9及以上需要 --add-opens java.base/sun.nio.ch=ALL-UNNAMED，否则自动退回HashSet
+     */
+    public SelectorManagerBuilder optimizeSelectedKeys(boolean optimizeSelectedKeys) {
+        this.optimizeSelectedKeys = optimizeSelectedKeys;
+        return this;
+    }
+
+    /**
+     * 接收缓存区的大小范围。读满缓存区时下一次放大，连续读取量偏小时缩小，缓存区从EventLoop的池中借出，
+     * 最大值不超过池的最大分级（64KB）时都可以复用
+     */
+    public SelectorManagerBuilder receiveBufferSize(int minSize, int initialSize, int maxSize) {
+        this.minReceiveBufferSize = minSize;
+        this.initialReceiveBufferSize = initialSize;
+        this.maxReceiveBufferSize = maxSize;
+        return this;
+    }
+
+    public SelectorManagerBuilder rejectResponse(String rejectResponse) {
+        this.rejectResponse = rejectResponse;
+        return this;
+    }
+
+    public SelectorManager build() throws IOException {
+        if (eventLoopAccount <= 0) {
+            throw new IllegalArgumentException("eventLoopAccount 必须大于0");
+        }
+        if (idleTimeoutMillis <= 0 || readTimeoutMillis <= 0 || writeTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis、readTimeoutMillis 和 writeTimeoutMillis 必须大于0");
+        }
+        if (stallThresholdMillis <= 0) {
+            throw new IllegalArgumentException("stallThresholdMillis 必须大于0");
+        }
+        if (maxConcurrentStreams <= 0) {
+            throw new IllegalArgumentException("maxConcurrentStreams 必须大于0");
+        }
+        if (minReceiveBufferSize <= 0 || minReceiveBufferSize > initialReceiveBufferSize || initialReceiveBufferSize > maxReceiveBufferSize) {
+            throw new IllegalArgumentException("接收缓存区大小必须满足 0 < minSize <= initialSize <= maxSize");
+        }
+        if (flushThresholdBytes < 0) {
+            throw new IllegalArgumentException("flushThresholdBytes 不可以小于0");
+        }
+        if (acceptorAccount <= 0 || acceptBatchSize <= 0) {
+            throw new IllegalArgumentException("acceptorAccount 和 acceptBatchSize 必须大于0");
+        }
+        if (frameDecoderFactory == null) {
+            throw new IllegalArgumentException("frameDecoderFactory 不可以为空");
+        }
+        if (eventLoopChooser == null) {
+            throw new IllegalArgumentException("eventLoopChooser 不可以为空");
+        }
+        if (serviceHandler == null || executionStrategy == null) {
+            throw new IllegalArgumentException("serviceHandler 和 executionStrategy 不可以为空");
+        }
+        return new SelectorManager(this);
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    int getEventLoopAccount() {
+        return eventLoopAccount;
+    }
+
+    long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    long getStallThresholdMillis() {
+        return stallThresholdMillis;
+    }
+
+    boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    boolean isOptimizeSelectedKeys() {
+        return optimizeSelectedKeys;
+    }
+
+    int getMinReceiveBufferSize() {
+        return minReceiveBufferSize;
+    }
+
+    int getInitialReceiveBufferSize() {
+        return initialReceiveBufferSize;
+    }
+
+    int getMaxReceiveBufferSize() {
+        return maxReceiveBufferSize;
+    }
+
+    int getFlushThresholdBytes() {
+        return flushThresholdBytes;
+    }
+
+    @SuppressWarnings("unchecked")
+    Supplier<FrameDecoder<Object>> getFrameDecoderFactory() {
+        Supplier<? extends FrameDecoder<?>> factory = frameDecoderFactory;
+        return () -> (FrameDecoder<Object>) factory.get();
+    }
+
+    int getAcceptorAccount() {
+        return acceptorAccount;
+    }
+
+    int getAcceptBatchSize() {
+        return acceptBatchSize;
+    }
+
+    boolean isReusePort() {
+        return reusePort;
+    }
+
+    EventLoopChooser getEventLoopChooser() {
+        return eventLoopChooser;
+    }
+
+    @SuppressWarnings("unchecked")
+    ServiceHandler<Object> getServiceHandler() {
+        return (ServiceHandler<Object>) serviceHandler;
+    }
+
+    ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    String getRejectResponse() {
+        return rejectResponse;
+    }
 }
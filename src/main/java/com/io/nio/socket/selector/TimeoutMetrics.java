@@ -0,0 +1,50 @@
+package com.io.nio.socket.selector;
+
+/**
+ * @author heshuai
+ * @title: TimeoutMetrics
+ * @description: EventLoop因为超时而关闭的连接数，只由所属线程写入，其他线程只读
+ * @date 2026年10月18日 22:30
+ */
+public class TimeoutMetrics {
+
+    // 没有请求时空闲超时
+    private volatile long idleTimeouts;
+    // 请求只读到一部分，后续数据迟迟没有到达
+    private volatile long readTimeouts;
+    // 响应迟迟写不出去，客户端不读取
+    private volatile long writeTimeouts;
+
+    void incrementIdleTimeouts() {
+        idleTimeouts++;
+    }
+
+    void incrementReadTimeouts() {
+        readTimeouts++;
+    }
+
+    void incrementWriteTimeouts() {
+        writeTimeouts++;
+    }
+
+    public long getIdleTimeouts() {
+        return idleTimeouts;
+    }
+
+    public long getReadTimeouts() {
+        return readTimeouts;
+    }
+
+    public long getWriteTimeouts() {
+        return writeTimeouts;
+    }
+
+    public long getTotalTimeouts() {
+        return idleTimeouts + readTimeouts + writeTimeouts;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeoutMetrics{idleTimeouts=" + idleTimeouts + ", readTimeouts=" + readTimeouts + ", writeTimeouts=" + writeTimeouts + "}";
+    }
+}
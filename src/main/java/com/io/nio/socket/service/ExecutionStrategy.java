@@ -0,0 +1,93 @@
+package com.io.nio.socket.service;
+
+import com.io.nio.socket.CustomizedThreadPool;
+import com.io.nio.socket.metrics.LatencyCounter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author heshuai
+ * @title: ExecutionStrategy
+ * @description: 业务处理器的执行策略，决定解析出的请求在哪个线程中交给ServiceHandler：
+ *              inline直接在EventLoop线程中执行，省掉两次线程切换，只适用于微秒级、不会阻塞的处理器；
+ *              sharedPool交给CustomizedThreadPool的读写线程池；dedicatedPool交给该处理器独占的线程池。
+ *              每个策略实例记录从请求解析完成到响应进入出站队列的延迟
+ * @date 2026年10月18日 20:10
+ */
+public class ExecutionStrategy {
+
+    // 独占线程池默认的队列容量，和共享的读写线程池相同
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final String name;
+    // 为null表示在EventLoop线程中直接执行
+    private final Executor executor;
+
+    private final LatencyCounter latency = new LatencyCounter();
+
+    private ExecutionStrategy(String name, Executor executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    public static ExecutionStrategy inline() {
+        return new ExecutionStrategy("inline", null);
+    }
+
+    public static ExecutionStrategy sharedPool() {
+        return new ExecutionStrategy("shared-pool", CustomizedThreadPool::writeHandlerSubmit);
+    }
+
+    public static ExecutionStrategy dedicatedPool(String name, ExecutorService executorService) {
+        return new ExecutionStrategy(name, executorService);
+    }
+
+    public static ExecutionStrategy dedicatedPool(String name, int threads) {
+        return dedicatedPool(name, threads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 固定线程数、有界队列的独占线程池，队列满了之后提交的请求被拒绝（RejectedExecutionException），由EventLoop回复拒绝响应
+     * @param queueCapacity 等待处理的请求数上限
+     */
+    public static ExecutionStrategy dedicatedPool(String name, int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = r -> new Thread(r, name + "-" + threadNumber.incrementAndGet());
+        return dedicatedPool(name, new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    /**
+     * 在EventLoop线程中调用，按策略执行任务
+     */
+    public void execute(Runnable task) {
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    public boolean isInline() {
+        return executor == null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyCounter getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + latency;
+    }
+}
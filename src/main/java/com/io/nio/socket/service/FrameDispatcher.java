@@ -0,0 +1,71 @@
+package com.io.nio.socket.service;
+
+import com.io.nio.socket.AdaptiveConcurrencyLimiter;
+import com.io.nio.socket.CustomizedThreadPool;
+import com.io.nio.socket.service.selected.SelectedServiceHandler;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author heshuai
+ * @title: FrameDispatcher
+ * @description: 把一次读取中解析出的请求交给业务处理器，selector模型的EventLoop和NIO.2模型的AioServer共用。
+ *              在入口处做并发限制：按顺序为每个请求申请名额，申请不到的请求不进入线程池排队，
+ *              而是在已接受请求的响应之后直接回复拒绝响应
+ * @date 2026年10月19日 21:20
+ */
+public class FrameDispatcher {
+
+    private final ServiceHandler<Object> serviceHandler;
+    private final ExecutionStrategy executionStrategy;
+    private final String rejectResponse;
+    // 响应是否按请求顺序写出，多路复用的协议按处理完成的顺序写出
+    private final boolean ordered;
+
+    public FrameDispatcher(ServiceHandler<Object> serviceHandler, ExecutionStrategy executionStrategy, String rejectResponse,
+                           boolean ordered) {
+        this.serviceHandler = serviceHandler;
+        this.executionStrategy = executionStrategy;
+        this.rejectResponse = rejectResponse;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 在连接的读线程中调用，frames交给业务处理器之后不能再修改
+     */
+    public void dispatch(ServiceConnection connection, List<Object> frames) {
+        AdaptiveConcurrencyLimiter limiter = CustomizedThreadPool.limiter();
+        int admitted = 0;
+        while (admitted < frames.size() && limiter.tryAcquire()) {
+            admitted++;
+        }
+        limiter.addRejected(frames.size() - admitted);
+        if (admitted == 0) {
+            reject(connection, frames);
+            return;
+        }
+        try {
+            // 按执行策略交给业务处理器：inline时直接在本线程中执行，否则交给线程池
+            executionStrategy.execute(new SelectedServiceHandler(frames, admitted, rejectResponse, connection,
+                    serviceHandler, executionStrategy, limiter, ordered));
+        } catch (RejectedExecutionException e) {
+            // 线程池队列已满，归还名额并作为一次过载信号，所有请求直接回复拒绝响应
+            limiter.release(0, true);
+            for (int i = 1; i < admitted; i++) {
+                limiter.cancel();
+            }
+            limiter.addRejected(admitted);
+            reject(connection, frames);
+        }
+    }
+
+    /**
+     * 不经过业务处理器，为每个请求回复拒绝响应，多路复用协议为带同一streamId的ERROR帧
+     */
+    public void reject(ServiceConnection connection, List<Object> frames) {
+        for (Object frame : frames) {
+            connection.write(serviceHandler.reject(frame, rejectResponse), null);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.io.nio.socket.service;
+
+import com.io.nio.socket.selector.FileRegion;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author heshuai
+ * @title: ServiceConnection
+ * @description: 业务处理流程看到的连接，屏蔽底层的传输方式：selector模型的Connection和NIO.2的AioConnection都实现该接口，
+ *              因此同一个ServiceHandler和SelectedServiceHandler可以运行在两种传输方式上。所有方法都可以在任意线程调用
+ * @date 2026年10月19日 16:10
+ */
+public interface ServiceConnection {
+
+    boolean isOpen();
+
+    SocketAddress getRemoteAddress();
+
+    /**
+     * 写出一个响应
+     * @param responseData String、ByteBuffer、FileRegion，或者按顺序写出的由它们组成的List
+     * @param onQueued 响应进入出站队列之后执行的回调，可以为null
+     */
+    void write(Object responseData, Runnable onQueued);
+
+    void close();
+
+    /**
+     * 响应是否是write支持的类型，两种传输方式在写出之前检查
+     */
+    static boolean isSupported(Object responseData) {
+        if (responseData instanceof List) {
+            for (Object part : (List<?>) responseData) {
+                if (!isSupported(part)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return responseData == null || responseData instanceof String || responseData instanceof ByteBuffer
+                || responseData instanceof FileRegion;
+    }
+
+    /**
+     * 丢弃不会再写出的响应，关闭其中的文件
+     */
+    static void discard(Object responseData) {
+        if (responseData instanceof FileRegion) {
+            ((FileRegion) responseData).close();
+        } else if (responseData instanceof List) {
+            for (Object part : (List<?>) responseData) {
+                discard(part);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.io.nio.socket.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @author heshuai
+ * @title: ServiceHandler
+ * @description: 业务处理器SPI，通过SelectorManagerBuilder注册一次，所有连接共用同一个实例，实现需要线程安全。
+ *              handle应当尽快返回，等待慢速后端时返回一个未完成的CompletableFuture，
+ *              不要阻塞调用线程；future完成后由连接所属的EventLoop写出响应。T是帧解码器解析出的请求类型
+ * @date 2026年10月18日 19:00
+ */
+@FunctionalInterface
+public interface ServiceHandler<T> {
+
+    /**
+     * 处理一个完整的请求帧
+     * @param request 请求帧，只在返回的future完成之前有效
+     * @return 响应数据，可以是String、ByteBuffer、FileRegion，或者按顺序写出的由它们组成的List；异常完成时连接会被关闭
+     */
+    CompletableFuture<?> handle(T request);
+
+    /**
+     * 请求因为超过并发上限被拒绝时回复的响应数据，需要在响应中携带请求标识的协议可以覆盖该方法
+     * @param rejectResponse SelectorManagerBuilder中配置的拒绝响应
+     */
+    default Object reject(T request, String rejectResponse) {
+        return rejectResponse;
+    }
+
+    /**
+     * 把同步的处理逻辑包装为ServiceHandler，适用于耗时很短、不会阻塞的处理
+     */
+    static <T> ServiceHandler<T> sync(Function<T, String> handler) {
+        return request -> {
+            try {
+                return CompletableFuture.completedFuture(handler.apply(request));
+            } catch (RuntimeException e) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        };
+    }
+
+    /**
+     * 把回调风格的处理逻辑包装为ServiceHandler，处理完成后调用回调传入响应
+     */
+    static <T> ServiceHandler<T> callback(BiConsumer<T, Consumer<String>> handler) {
+        return request -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            try {
+                handler.accept(request, future::complete);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.io.nio.socket.service.http;
+
+import com.io.nio.socket.codec.http.HttpRequest;
+import com.io.nio.socket.codec.http.HttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * @author heshuai
+ * @title: HttpHandler
+ * @description: 处理某个路径的HTTP请求，和ServiceHandler一样不应阻塞调用线程，需要线程安全
+ * @date 2026年10月18日 21:45
+ */
+@FunctionalInterface
+public interface HttpHandler {
+
+    CompletableFuture<HttpResponse> handle(HttpRequest request);
+
+    /**
+     * 把同步的处理逻辑包装为HttpHandler
+     */
+    static HttpHandler sync(Function<HttpRequest, HttpResponse> handler) {
+        return request -> {
+            try {
+                return CompletableFuture.completedFuture(handler.apply(request));
+            } catch (RuntimeException e) {
+                CompletableFuture<HttpResponse> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        };
+    }
+}
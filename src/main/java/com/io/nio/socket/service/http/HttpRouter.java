@@ -0,0 +1,88 @@
+package com.io.nio.socket.service.http;
+
+import com.io.nio.socket.codec.http.HttpRequest;
+import com.io.nio.socket.codec.http.HttpResponse;
+import com.io.nio.socket.service.ServiceHandler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author heshuai
+ * @title: HttpRouter
+ * @description: 按路径把HTTP请求分发给HttpHandler。以/结尾的路由按前缀匹配，其余按路径精确匹配，
+ *              精确匹配优先，前缀匹配取最长的一个；没有匹配的路由时返回404，格式错误的请求回复解码器给出的状态码。
+ *              路由应当在启动服务之前注册完毕
+ * @date 2026年10月18日 21:50
+ */
+public class HttpRouter implements ServiceHandler<HttpRequest> {
+
+    private final Map<String, HttpHandler> exactRoutes = new HashMap<>();
+    // 按前缀长度从长到短排列
+    private final List<String> prefixes = new ArrayList<>();
+    private final Map<String, HttpHandler> prefixRoutes = new HashMap<>();
+
+    public HttpRouter route(String path, HttpHandler handler) {
+        if (path == null || !path.startsWith("/") || handler == null) {
+            throw new IllegalArgumentException("路由路径必须以/开头，并且handler不可以为空");
+        }
+        if (path.endsWith("/")) {
+            if (prefixRoutes.put(path, handler) == null) {
+                prefixes.add(path);
+                prefixes.sort((a, b) -> b.length() - a.length());
+            }
+        } else {
+            exactRoutes.put(path, handler);
+        }
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<Object> handle(HttpRequest request) {
+        if (request.isError()) {
+            // 格式错误的请求回复解码器给出的状态码，错误请求不保持连接，响应中带有Connection: close
+            HttpResponse response = new HttpResponse(request.getErrorStatus(), request.getErrorReason()).body(request.getErrorReason());
+            return CompletableFuture.<Object>completedFuture(response.encode(request));
+        }
+        HttpHandler handler = match(request.getPath());
+        if (handler == null) {
+            return CompletableFuture.<Object>completedFuture(HttpResponse.notFound().encode(request));
+        }
+        CompletableFuture<HttpResponse> response;
+        try {
+            response = handler.handle(request);
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        if (response == null) {
+            response = CompletableFuture.completedFuture(null);
+        }
+        // 处理器失败时回复500，保持连接可用
+        return response.handle((resp, e) -> {
+            if (e != null || resp == null) {
+                if (e != null) {
+                    e.printStackTrace();
+                }
+                return HttpResponse.internalServerError().encode(request);
+            }
+            return resp.toResponseData(request);
+        });
+    }
+
+    private HttpHandler match(String path) {
+        HttpHandler handler = exactRoutes.get(path);
+        if (handler != null) {
+            return handler;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return prefixRoutes.get(prefix);
+            }
+        }
+        return null;
+    }
+}
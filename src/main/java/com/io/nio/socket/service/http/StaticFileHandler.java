@@ -0,0 +1,73 @@
+package com.io.nio.socket.service.http;
+
+import com.io.nio.socket.CustomizedThreadPool;
+import com.io.nio.socket.codec.http.HttpRequest;
+import com.io.nio.socket.codec.http.HttpResponse;
+import com.io.nio.socket.selector.FileRegion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author heshuai
+ * @title: StaticFileHandler
+ * @description: 把一个目录下的文件作为静态资源提供，注册在以/结尾的前缀路由上，例如route("/files/", new StaticFileHandler("/files/", root))。
+ *              文件内容以FileRegion写出，不读入堆内存。
+ *              判断文件是否存在、探测Content-Type、打开文件都是阻塞的磁盘IO，handle只做路径检查，其余交给ioExecutor执行后返回，
+ *              即使路由以inline策略注册也不会阻塞EventLoop；默认使用CustomizedThreadPool的读写线程池
+ * @date 2026年10月18日 23:40
+ */
+public class StaticFileHandler implements HttpHandler {
+
+    private final String prefix;
+    private final Path root;
+    // 执行阻塞文件操作的线程池，不能是直接执行的Executor
+    private final Executor ioExecutor;
+
+    public StaticFileHandler(String prefix, Path root) {
+        this(prefix, root, CustomizedThreadPool::writeHandlerSubmit);
+    }
+
+    public StaticFileHandler(String prefix, Path root, Executor ioExecutor) {
+        this.prefix = prefix;
+        this.root = root.toAbsolutePath().normalize();
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> handle(HttpRequest request) {
+        String path = request.getPath();
+        Path file = root.resolve(path.substring(Math.min(prefix.length(), path.length()))).normalize();
+        // 拒绝通过..访问根目录之外的文件
+        if (!file.startsWith(root)) {
+            return CompletableFuture.completedFuture(new HttpResponse(403, "Forbidden").body("Forbidden"));
+        }
+        CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        try {
+            ioExecutor.execute(() -> open(file, response));
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，由路由回复500，不退回到调用线程中执行
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    private void open(Path file, CompletableFuture<HttpResponse> response) {
+        if (!Files.isRegularFile(file)) {
+            response.complete(HttpResponse.notFound());
+            return;
+        }
+        try {
+            String contentType = Files.probeContentType(file);
+            response.complete(new HttpResponse(200, "OK")
+                    .contentType(contentType == null ? "application/octet-stream" : contentType)
+                    .file(FileRegion.open(file)));
+        } catch (IOException | RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+    }
+}
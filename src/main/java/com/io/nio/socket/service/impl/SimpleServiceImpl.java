@@ -1,21 +1,34 @@
 package com.io.nio.socket.service.impl;
 
+import com.io.log.AsyncLogger;
+import com.io.log.LogLevel;
+import com.io.nio.socket.service.ServiceHandler;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author heshuai
  * @title: SimpleService
- * @description: TODO
+ * @description: 示例业务处理器，按行分隔的请求都回复Welcome!!!，请求内容只在DEBUG级别输出
  * @date 2021年07月17日 21:41
  */
-public class SimpleServiceImpl {
+public class SimpleServiceImpl implements ServiceHandler<ByteBuffer> {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SimpleServiceImpl.class);
+
+    @Override
+    public CompletableFuture<String> handle(ByteBuffer request) {
+        return CompletableFuture.completedFuture(handler(request));
+    }
 
-    public String handler(String requestData){
-        System.out.println("开始业务处理...");
-        // 业务处理
-        System.out.println("请求数据为：");
-        System.out.println("*************************");
-        System.out.println(requestData);
-        System.out.println("*************************");
-        return "Welcome!!!";
+    public String handler(ByteBuffer requestData){
+        if (LOGGER.isEnabled(LogLevel.DEBUG)) {
+            // 业务处理，请求帧由后台日志线程解码输出，这里只传递引用
+            LOGGER.debug("开始业务处理，请求数据为：{}", requestData);
+        }
+        // 响应以\n结尾，和请求一样按行分隔
+        return "Welcome!!!\n";
     }
 
 }
@@ -0,0 +1,33 @@
+package com.io.nio.socket.service.mux;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * @author heshuai
+ * @title: MuxHandler
+ * @description: 处理多路复用协议中一个请求帧的payload，返回响应帧的payload。
+ *              和ServiceHandler一样不应阻塞调用线程，需要线程安全；同一个连接上的多个请求会被同时调用
+ * @date 2026年10月19日 10:30
+ */
+@FunctionalInterface
+public interface MuxHandler {
+
+    CompletableFuture<ByteBuffer> handle(ByteBuffer payload);
+
+    /**
+     * 把同步的处理逻辑包装为MuxHandler
+     */
+    static MuxHandler sync(Function<ByteBuffer, ByteBuffer> handler) {
+        return payload -> {
+            try {
+                return CompletableFuture.completedFuture(handler.apply(payload));
+            } catch (RuntimeException e) {
+                CompletableFuture<ByteBuffer> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        };
+    }
+}
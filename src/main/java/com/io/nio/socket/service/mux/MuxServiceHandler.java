@@ -0,0 +1,65 @@
+package com.io.nio.socket.service.mux;
+
+import com.io.log.AsyncLogger;
+import com.io.nio.socket.codec.mux.MuxFrame;
+import com.io.nio.socket.service.ServiceHandler;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author heshuai
+ * @title: MuxServiceHandler
+ * @description: 把多路复用协议的请求帧交给MuxHandler，并把结果编码为带同一streamId的响应帧。
+ *              处理失败、返回null或者帧类型不是请求时回复ERROR帧，只影响该stream，连接和其他stream继续可用
+ * @date 2026年10月19日 10:40
+ */
+public class MuxServiceHandler implements ServiceHandler<MuxFrame> {
+
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(MuxServiceHandler.class);
+
+    private final MuxHandler handler;
+
+    public MuxServiceHandler(MuxHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler 不可以为空");
+        }
+        this.handler = handler;
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> handle(MuxFrame request) {
+        int streamId = request.getStreamId();
+        if (request.getType() != MuxFrame.TYPE_REQUEST) {
+            return CompletableFuture.completedFuture(MuxFrame.error(streamId, "不支持的帧类型: " + request.getType()).encode());
+        }
+        CompletableFuture<ByteBuffer> response;
+        try {
+            response = handler.handle(request.getPayload());
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        if (response == null) {
+            response = CompletableFuture.completedFuture(null);
+        }
+        return response.handle((payload, e) -> {
+            if (e != null) {
+                LOGGER.error("stream {} 处理失败", streamId, e);
+                return MuxFrame.error(streamId, String.valueOf(e.getMessage())).encode();
+            }
+            if (payload == null) {
+                return MuxFrame.error(streamId, "MuxHandler 不可以返回null").encode();
+            }
+            return MuxFrame.response(streamId, payload).encode();
+        });
+    }
+
+    /**
+     * 被拒绝的请求回复带同一streamId的ERROR帧，客户端可以只重试该请求
+     */
+    @Override
+    public Object reject(MuxFrame request, String rejectResponse) {
+        return MuxFrame.error(request.getStreamId(), rejectResponse).encode();
+    }
+}
@@ -1,15 +1,14 @@
 package com.io.nio.socket.service.selected;
 
-import com.io.nio.socket.service.impl.SimpleServiceImpl;
+import com.io.log.AsyncLogger;
+import com.io.log.LogLevel;
+import com.io.nio.socket.AdaptiveConcurrencyLimiter;
+import com.io.nio.socket.service.ExecutionStrategy;
+import com.io.nio.socket.service.ServiceConnection;
+import com.io.nio.socket.service.ServiceHandler;
 
-import javax.sql.RowSet;
-import java.io.IOException;
-import java.net.SocketAddress;
-import java.net.http.HttpResponse;
-import java.nio.channels.ClosedChannelException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author heshuai
@@ -19,35 +18,133 @@ import java.nio.channels.SocketChannel;
  */
 public class SelectedServiceHandler implements Runnable{
 
+    private static final AsyncLogger LOGGER = AsyncLogger.getLogger(SelectedServiceHandler.class);
 
-    private final String requestData;
+    // 帧解码器解析出的完整请求帧，按到达顺序排列
+    private final List<Object> requestFrames;
+    // requestFrames中前admittedCount个请求申请到了并发名额，其余的因为超过并发上限而被拒绝
+    private final int admittedCount;
+    // 拒绝响应
+    private final String rejectResponse;
 
-    private final Selector writeSelector;
+    private final ServiceConnection connection;
+    // 注册在SelectorManagerBuilder上的业务处理器
+    private final ServiceHandler<Object> serviceHandler;
+    // 执行本任务的策略，用于记录延迟
+    private final ExecutionStrategy executionStrategy;
+    // requestFrames中每个请求都已经在该限制器上申请了名额，处理完成后归还
+    private final AdaptiveConcurrencyLimiter limiter;
+    // 响应是否按请求顺序写出，多路复用的协议按处理完成的顺序写出
+    private final boolean ordered;
+    // 请求解析完成的时间
+    private final long dispatchNanos = System.nanoTime();
 
-    private final SocketChannel clientChannel;
-
-    public SelectedServiceHandler(String requestData, Selector writeSelector, SocketChannel clientChannel) {
-        this.requestData = requestData;
-        this.writeSelector = writeSelector;
-        this.clientChannel = clientChannel;
+    public SelectedServiceHandler(List<Object> requestFrames, int admittedCount, String rejectResponse, ServiceConnection connection,
+                                  ServiceHandler<Object> serviceHandler, ExecutionStrategy executionStrategy,
+                                  AdaptiveConcurrencyLimiter limiter, boolean ordered) {
+        this.requestFrames = requestFrames;
+        this.admittedCount = admittedCount;
+        this.rejectResponse = rejectResponse;
+        this.connection = connection;
+        this.serviceHandler = serviceHandler;
+        this.executionStrategy = executionStrategy;
+        this.limiter = limiter;
+        this.ordered = ordered;
     }
 
     @Override
     public void run() {
+        if (!connection.isOpen()) {
+            // 连接已经关闭，请求不会再被处理，归还申请到的并发名额
+            for (int i = 0; i < admittedCount; i++) {
+                limiter.cancel();
+            }
+            return;
+        }
+        if (LOGGER.isEnabled(LogLevel.DEBUG)) {
+            LOGGER.debug("请求地址为：{}", connection.getRemoteAddress());
+        }
+        if (!ordered) {
+            runUnordered();
+            return;
+        }
+        // 同一次读取中解析出多个帧时，所有帧同时交给处理器，但响应按请求顺序写出：
+        // 每个响应都要等前一个响应写出之后才写，本线程在handle返回之后就被释放，不等待future完成
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < admittedCount; i++) {
+            CompletableFuture<?> response = dispatch(requestFrames.get(i));
+            previous = previous.thenCombine(response, (ignored, responseData) -> {
+                // 响应交给连接所属的EventLoop写出，本线程不操作selector
+                connection.write(responseData, this::recordLatency);
+                return null;
+            });
+        }
+        // 被拒绝的请求排在最后，同样按顺序回复
+        for (int i = admittedCount; i < requestFrames.size(); i++) {
+            Object rejected = serviceHandler.reject(requestFrames.get(i), rejectResponse);
+            previous = previous.thenApply(ignored -> {
+                connection.write(rejected, null);
+                return null;
+            });
+        }
+        previous.whenComplete((ignored, e) -> {
+            if (e != null) {
+                e.printStackTrace();
+                connection.close();
+            }
+        });
+    }
+
+    /**
+     * 每个响应在处理完成后立即写出，不等待之前的请求；响应自身携带请求标识，由客户端按标识匹配
+     */
+    private void runUnordered() {
+        for (int i = 0; i < admittedCount; i++) {
+            dispatch(requestFrames.get(i)).whenComplete((responseData, e) -> {
+                if (e != null) {
+                    e.printStackTrace();
+                    connection.close();
+                    return;
+                }
+                connection.write(responseData, this::recordLatency);
+            });
+        }
+        for (int i = admittedCount; i < requestFrames.size(); i++) {
+            connection.write(serviceHandler.reject(requestFrames.get(i), rejectResponse), null);
+        }
+    }
+
+    /**
+     * 响应进入出站队列时在EventLoop线程中调用，延迟包含了往返的线程切换
+     */
+    private void recordLatency() {
+        executionStrategy.getLatency().record(System.nanoTime() - dispatchNanos);
+    }
+
+    private CompletableFuture<?> dispatch(Object requestFrame) {
+        long start = System.nanoTime();
+        CompletableFuture<?> response = invoke(requestFrame);
+        // 处理完成（无论成功失败）后归还并发名额，处理耗时驱动并发上限的调整
+        response.whenComplete((responseData, e) -> limiter.release(System.nanoTime() - start, e != null));
+        return response;
+    }
+
+    private CompletableFuture<?> invoke(Object requestFrame) {
+        CompletableFuture<?> response;
         try {
-            System.out.println("请求地址为：" + clientChannel.getRemoteAddress());
-            String responseData = doGet();
-            clientChannel.register(writeSelector, SelectionKey.OP_WRITE, responseData);
-            writeSelector.wakeup();
-        } catch (ClosedChannelException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+            response = serviceHandler.handle(requestFrame);
+        } catch (RuntimeException e) {
+            response = failed(e);
+        }
+        if (response == null) {
+            response = failed(new IllegalStateException("ServiceHandler 不可以返回null"));
         }
+        return response;
     }
 
-    private String doGet() {
-        SimpleServiceImpl simpleService = new SimpleServiceImpl();
-        return simpleService.handler(requestData);
+    private static CompletableFuture<Object> failed(Throwable e) {
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        response.completeExceptionally(e);
+        return response;
     }
 }